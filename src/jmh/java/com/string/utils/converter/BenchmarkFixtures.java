@@ -0,0 +1,77 @@
+package com.string.utils.converter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible inputs for benchmarks. Words are random cyrillic words, so UTF-8 input has two byte chars.
+ * Duplicate ratio is a probability that the next word repeats one of the previous words instead of a new random one.
+ */
+final class BenchmarkFixtures {
+
+    private static final String LETTERS = "абвгдеёжзийклмнопрстуфхцчшщъыьэюя";
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final int MAX_WORD_LENGTH = 12;
+    /**
+     * Number of words, which can be repeated. Old words are replaced, so the generator memory does not depend on input size.
+     */
+    private static final int VOCABULARY_SIZE = 100_000;
+    private static final int CHUNK_CHARS = 64 * 1024;
+
+    private final Random random;
+    private final double duplicateRatio;
+    private final List<String> vocabulary = new ArrayList<>();
+
+    BenchmarkFixtures(long seed, double duplicateRatio) {
+        this.random = new Random(seed);
+        this.duplicateRatio = duplicateRatio;
+    }
+
+    /**
+     * Creates temporary file of at least passed size with a single line of words.
+     */
+    Path file(long size, Charset charset) throws IOException {
+        Path file = Files.createTempFile("benchmark", ".txt");
+        long written = 0;
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file), CHUNK_CHARS)) {
+            StringBuilder chunk = new StringBuilder(CHUNK_CHARS + MAX_WORD_LENGTH);
+            while (written < size) {
+                chunk.setLength(0);
+                while (chunk.length() < CHUNK_CHARS) chunk.append(nextWord()).append(' ');
+                byte[] bytes = chunk.toString().getBytes(charset);
+                output.write(bytes);
+                written += bytes.length;
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Creates a line of at least passed length.
+     */
+    String line(int length) {
+        StringBuilder line = new StringBuilder(length + MAX_WORD_LENGTH);
+        while (line.length() < length) line.append(nextWord()).append(' ');
+        return line.toString();
+    }
+
+    private String nextWord() {
+        if (!vocabulary.isEmpty() && random.nextDouble() < duplicateRatio) {
+            return vocabulary.get(random.nextInt(vocabulary.size()));
+        }
+        int length = MIN_WORD_LENGTH + random.nextInt(MAX_WORD_LENGTH - MIN_WORD_LENGTH + 1);
+        char[] word = new char[length];
+        for (int i = 0; i < length; i++) word[i] = LETTERS.charAt(random.nextInt(LETTERS.length()));
+        String newWord = new String(word);
+        if (vocabulary.size() < VOCABULARY_SIZE) vocabulary.add(newWord);
+        else vocabulary.set(random.nextInt(VOCABULARY_SIZE), newWord);
+        return newWord;
+    }
+}
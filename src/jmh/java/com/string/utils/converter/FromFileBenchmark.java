@@ -0,0 +1,63 @@
+package com.string.utils.converter;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of {@link StringToMapConverter#fromFile(String)} for a generated file.
+ * File is generated once per trial, so the first iterations include reading from disk and the others read from page cache.
+ * Build mode is TREE_SET by default, other modes are compared by -p buildMode=HASH_THEN_SORT,COMPACT etc.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class FromFileBenchmark {
+
+    /**
+     * From the tiny buffer of the tests till multi megabyte one.
+     */
+    @Param({"8", "8192", "1048576", "4194304"})
+    private int bufferSize;
+
+    @Param({"UTF-8", "Windows-1251"})
+    private String charsetName;
+
+    @Param({"1048576", "67108864"})
+    private long fileSize;
+
+    @Param({"0.0", "0.5", "0.95"})
+    private double duplicateRatio;
+
+    @Param({"TREE_SET"})
+    private BuildMode buildMode;
+
+    private Path file;
+    private StringToMapConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = new BenchmarkFixtures(42, duplicateRatio).file(fileSize, Charset.forName(charsetName));
+        converter = new StringToMapConverter(bufferSize, charsetName);
+        converter.setBuildMode(buildMode);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> fromFile() {
+        return converter.fromFile(file.toString());
+    }
+}
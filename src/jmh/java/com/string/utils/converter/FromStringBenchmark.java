@@ -0,0 +1,37 @@
+package com.string.utils.converter;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of {@link StringToMapConverter#fromString(CharSequence)} for generated lines of different length.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FromStringBenchmark {
+
+    @Param({"100", "10000", "1000000"})
+    private int length;
+
+    @Param({"0.0", "0.5", "0.95"})
+    private double duplicateRatio;
+
+    private String line;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        line = new BenchmarkFixtures(42, duplicateRatio).line(length);
+    }
+
+    @Benchmark
+    public Map<String, Set<String>> fromString() {
+        return StringToMapConverter.fromString(line);
+    }
+}
@@ -0,0 +1,18 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+
+/**
+ * Receives progress of a batch conversion, see {@link StringToMapConverter#fromFiles(java.util.Collection, java.util.concurrent.ForkJoinPool, BatchListener)}.
+ * It is invoked by pool threads right after every file is converted or failed, so it should be fast and thread-safe.
+ */
+@FunctionalInterface
+public interface BatchListener {
+
+    /**
+     * @param error reason why the file is not converted, null if it is converted.
+     * @param completed number of files which are already converted or failed, including this one.
+     * @param total number of files in the batch.
+     */
+    void fileProcessed(String filePath, IOException error, int completed, int total);
+}
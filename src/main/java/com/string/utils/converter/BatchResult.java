@@ -0,0 +1,49 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable result of a batch conversion. Depending on the called method it holds either a single map merged from all files
+ * or a map of every file, and errors of the files which are not converted.
+ */
+public final class BatchResult {
+
+    private final Map<String, Set<String>> result;
+    private final Map<String, Map<String, Set<String>>> results;
+    private final Map<String, IOException> errors;
+
+    BatchResult(Map<String, Set<String>> result, Map<String, Map<String, Set<String>>> results, Map<String, IOException> errors) {
+        this.result = Collections.unmodifiableMap(result);
+        this.results = Collections.unmodifiableMap(results);
+        this.errors = Collections.unmodifiableMap(errors);
+    }
+
+    /**
+     * Map according to task requirements for words of all converted files, empty if maps are returned per file.
+     */
+    public Map<String, Set<String>> getResult() {
+        return result;
+    }
+
+    /**
+     * Map according to task requirements of every converted file by its path in the order of the batch,
+     * empty if a single merged map is returned.
+     */
+    public Map<String, Map<String, Set<String>>> getResults() {
+        return results;
+    }
+
+    /**
+     * Errors of the files which are not converted by their paths. Such files are not included in the result.
+     */
+    public Map<String, IOException> getErrors() {
+        return errors;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+}
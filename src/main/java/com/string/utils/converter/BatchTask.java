@@ -0,0 +1,143 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Fork-join task, which converts a range of files of a batch.
+ * Range is halved until it is a single file, so idle threads steal halves of the remaining files.
+ * Big file is split further into segments by {@link SegmentTask}, so a few huge files among small ones are grouped in parallel too.
+ * Collectors of both halves are merged, or maps of files are kept separately if the batch is converted per file.
+ * IOException of a file is kept as its error and does not stop other files.
+ */
+class BatchTask extends RecursiveTask<WordCollector> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Batch batch;
+    private final int from;
+    private final int to;
+
+    BatchTask(Batch batch, int from, int to) {
+        this.batch = batch;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected WordCollector compute() {
+        if (to - from == 1) return convert(batch.filePaths.get(from));
+        int middle = (from + to) >>> 1;
+        BatchTask left = new BatchTask(batch, from, middle);
+        BatchTask right = new BatchTask(batch, middle, to);
+        left.fork();
+        WordCollector rightResult = right.compute();
+        WordCollector leftResult = left.join();
+        if (leftResult == null) return rightResult;
+        if (rightResult != null) leftResult.merge(rightResult);
+        return leftResult;
+    }
+
+    /**
+     * Returns collector of the file, or null if the file is failed or its map is kept separately.
+     */
+    private WordCollector convert(String filePath) {
+        WordCollector collector;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), READ)) {
+            collector = batch.byteLevel ? segments(channel) : sequential(channel);
+        } catch (IOException e) {
+            return fail(filePath, e);
+        } catch (UncheckedIOException e) {
+            return fail(filePath, e.getCause());
+        }
+        if (batch.results != null) {
+            batch.results.put(filePath, collector.result());
+            collector = null;
+        }
+        batch.processed(filePath, null);
+        return collector;
+    }
+
+    private WordCollector segments(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int segmentSize = StringToMapConverter.segmentSize(size, getPool().getParallelism(), batch.bufferSize);
+        return new SegmentTask(channel, 0L, size, segmentSize, batch.charset, batch.bufferSize, batch.collectors).invoke();
+    }
+
+    private WordCollector sequential(FileChannel channel) throws IOException {
+        WordsAccumulator accumulator = new WordsAccumulator(batch.bufferSize, batch.charset, batch.collectors.get());
+        try (MappedWindows windows = new MappedWindows(channel, 0L, channel.size(), batch.mappingWindowSize)) {
+            while (windows.hasNext()) accumulator.feed(windows.next());
+        }
+        return accumulator.finishCollecting();
+    }
+
+    private WordCollector fail(String filePath, IOException e) {
+        batch.fail(filePath, e);
+        return null;
+    }
+
+    /**
+     * State shared by all tasks of a batch.
+     */
+    static final class Batch {
+
+        private final List<String> filePaths;
+        private final Charset charset;
+        private final boolean byteLevel;
+        private final int bufferSize;
+        private final int mappingWindowSize;
+        private final Supplier<WordCollector> collectors;
+        private final BatchListener listener;
+        /**
+         * Maps of every file, null if collectors are merged.
+         */
+        private final Map<String, Map<String, Set<String>>> results;
+        private final Map<String, IOException> errors = new ConcurrentHashMap<>();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final int total;
+
+        Batch(List<String> filePaths, Charset charset, int bufferSize, int mappingWindowSize, Supplier<WordCollector> collectors,
+              boolean perFile, BatchListener listener, int total) {
+            this.filePaths = filePaths;
+            this.charset = charset;
+            this.byteLevel = WordTokenizer.isCutByWhitespaceBytes(charset);
+            this.bufferSize = bufferSize;
+            this.mappingWindowSize = mappingWindowSize;
+            this.collectors = collectors;
+            this.results = perFile ? new ConcurrentHashMap<>() : null;
+            this.listener = listener;
+            this.total = total;
+        }
+
+        Map<String, Set<String>> result(String filePath) {
+            return results.get(filePath);
+        }
+
+        IOException error(String filePath) {
+            return errors.get(filePath);
+        }
+
+        void fail(String filePath, IOException error) {
+            errors.put(filePath, error);
+            processed(filePath, error);
+        }
+
+        private void processed(String filePath, IOException error) {
+            int count = completed.incrementAndGet();
+            if (listener != null) listener.fileProcessed(filePath, error, count, total);
+        }
+    }
+}
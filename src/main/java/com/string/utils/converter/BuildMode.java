@@ -0,0 +1,52 @@
+package com.string.utils.converter;
+
+import java.nio.charset.Charset;
+
+/**
+ * Defines how per letter sets of words are built and stored by {@link StringToMapConverter} and {@link WordsAccumulator}.
+ * All modes give equal maps with the same ordering, they differ in speed and retained memory.
+ */
+public enum BuildMode {
+
+    /**
+     * Every word is inserted into the {@link java.util.TreeSet} of its first letter. Default mode.
+     */
+    TREE_SET {
+        @Override
+        WordCollector newCollector(Charset charset, GroupingKey groupingKey) {
+            return new TreeSetCollector(groupingKey);
+        }
+    },
+    /**
+     * Words of every letter are deduplicated by open addressing hash set and sorted once at the end.
+     * Result is the same mutable map of tree sets as in {@link #TREE_SET} mode.
+     * It is much faster when most words are repeats, see {@link HashSortCollector}.
+     */
+    HASH_THEN_SORT {
+        @Override
+        WordCollector newCollector(Charset charset, GroupingKey groupingKey) {
+            return new HashSortCollector(groupingKey);
+        }
+    },
+    /**
+     * Words are kept as encoded bytes in per letter heap arenas and sorted once at the end.
+     * Result is a read-only view, which decodes words on access. See {@link CompactWordStore}.
+     */
+    COMPACT {
+        @Override
+        WordCollector newCollector(Charset charset, GroupingKey groupingKey) {
+            return new CompactWordStore(charset, false, groupingKey);
+        }
+    },
+    /**
+     * The same as {@link #COMPACT}, but arenas are direct buffers, so words do not occupy heap at all.
+     */
+    COMPACT_OFF_HEAP {
+        @Override
+        WordCollector newCollector(Charset charset, GroupingKey groupingKey) {
+            return new CompactWordStore(charset, true, groupingKey);
+        }
+    };
+
+    abstract WordCollector newCollector(Charset charset, GroupingKey groupingKey);
+}
@@ -0,0 +1,356 @@
+package com.string.utils.converter;
+
+import com.string.utils.creator.PathChecker;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caching layer around {@link StringToMapConverter#fromFile(String)} for files which are converted again and again.
+ * Result is keyed by real path, size, modification time, charset and settings of the converter (build mode, top size, grouping key), optionally by SHA-256 of the content.
+ * Results are kept in memory till their estimated size exceeds the memory budget, then the least recently used ones are evicted.
+ * If cache directory is set, every result is also saved there as a snapshot, so a restarted JVM reads it instead of the file conversion.
+ * Snapshot is named by the real path and settings only, so the snapshot of a new file version replaces the previous one.
+ *
+ * Cached maps are shared by all callers, so they are read-only. Instance is thread-safe, but the same file
+ * converted by several threads at once is converted by each of them.
+ */
+@Slf4j
+public class CachingConverter {
+
+    /**
+     * Estimated heap size of a word in the resulting tree set without its chars: tree entry, string and array headers.
+     */
+    private static final int WORD_OVERHEAD = 80;
+    private static final int SNAPSHOT_MAGIC = 0x574D4150;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int HASH_BUFFER_SIZE = 1024 * 1024;
+
+    private final StringToMapConverter converter;
+    private final long memoryBudget;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedSize;
+    /**
+     * Directory of snapshots, null if they are not saved.
+     */
+    private Path cacheDirectory;
+    /**
+     * Whether SHA-256 of the content is a part of the key. It costs reading of the whole file on every call,
+     * but detects changes which keep size and modification time.
+     */
+    private boolean contentHashing;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong snapshotHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param memoryBudget estimated heap size in bytes, which cached results can occupy.
+     */
+    public CachingConverter(StringToMapConverter converter, long memoryBudget) {
+        if (converter == null) throw new IllegalArgumentException("Illegal converter");
+        if (memoryBudget < 0) throw new IllegalArgumentException("Illegal memory budget");
+        this.converter = converter;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Enables snapshots in the passed directory, null disables them.
+     */
+    public synchronized void setCacheDirectory(String cacheDirectory) {
+        if (cacheDirectory == null) {
+            this.cacheDirectory = null;
+            return;
+        }
+        if (!PathChecker.isValid(cacheDirectory) || !Files.isDirectory(Paths.get(cacheDirectory))) throw new IllegalArgumentException("Illegal cache directory");
+        this.cacheDirectory = Paths.get(cacheDirectory);
+    }
+
+    public synchronized void setContentHashing(boolean contentHashing) {
+        this.contentHashing = contentHashing;
+    }
+
+    /**
+     * Returns cached result or converts the file by the wrapped converter and caches the result.
+     * Result is not cached if the file is changed while it is converted.
+     */
+    public Map<String, Set<String>> fromFile(String filePath) {
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        Path snapshotDirectory;
+        boolean hashing;
+        synchronized (this) {
+            snapshotDirectory = cacheDirectory;
+            hashing = contentHashing;
+        }
+        try {
+            Path realPath = Paths.get(filePath).toRealPath();
+            String key = key(realPath, hashing);
+            Map<String, Set<String>> result = cached(key);
+            if (result != null) {
+                hits.incrementAndGet();
+                return result;
+            }
+            Path snapshot = snapshotDirectory == null ? null : snapshotDirectory.resolve(sha256(location(realPath)) + ".snapshot");
+            result = snapshot == null ? null : readSnapshot(snapshot, key);
+            if (result != null) {
+                snapshotHits.incrementAndGet();
+                cache(key, result);
+                return result;
+            }
+            misses.incrementAndGet();
+            result = readOnly(converter.fromFile(filePath));
+            if (!isUnchanged(realPath, hashing, key)) {
+                LOGGER.warn("File {} is changed while it is converted, result is not cached", filePath);
+                return result;
+            }
+            cache(key, result);
+            if (snapshot != null) writeSnapshot(snapshot, key, result);
+            return result;
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage());
+            return readOnly(converter.fromFile(filePath));
+        }
+    }
+
+    /**
+     * Drops all results from memory, snapshots are kept.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        cachedSize = 0;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getSnapshotHits() {
+        return snapshotHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized long getCachedSize() {
+        return cachedSize;
+    }
+
+    /**
+     * Checks the file again after it is converted. File, which can not be checked, e.g. is deleted, is considered as changed,
+     * so the result is returned without caching instead of converting the file once more.
+     */
+    private boolean isUnchanged(Path realPath, boolean hashing, String key) {
+        try {
+            return key.equals(key(realPath, hashing));
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage());
+            return false;
+        }
+    }
+
+    private String key(Path realPath, boolean hashing) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(realPath, BasicFileAttributes.class);
+        StringBuilder key = new StringBuilder(location(realPath)).append('|')
+                .append(attributes.size()).append('|')
+                .append(attributes.lastModifiedTime().toMillis());
+        if (hashing) key.append('|').append(contentHash(realPath));
+        return key.toString();
+    }
+
+    /**
+     * Part of the key, which is the same for all versions of the file.
+     */
+    private String location(Path realPath) {
+        return realPath + "|" + converter.getCharsetName() + "|" + converter.getBuildMode() + "|" + converter.getTopK() + "|" + converter.getGroupingKey();
+    }
+
+    private synchronized Map<String, Set<String>> cached(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.result;
+    }
+
+    private synchronized void cache(String key, Map<String, Set<String>> result) {
+        long size = estimatedSize(result);
+        // result bigger than the whole budget would evict everything and would not fit anyway
+        if (size > memoryBudget) return;
+        Entry previous = entries.put(key, new Entry(result, size));
+        if (previous != null) cachedSize -= previous.size;
+        cachedSize += size;
+        Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+        while (cachedSize > memoryBudget) {
+            cachedSize -= leastRecentlyUsed.next().size;
+            leastRecentlyUsed.remove();
+        }
+    }
+
+    private static long estimatedSize(Map<String, Set<String>> result) {
+        long size = 0;
+        for (Set<String> words : result.values()) {
+            for (String word : words) size += WORD_OVERHEAD + 2L * word.length();
+        }
+        return size;
+    }
+
+    private static Map<String, Set<String>> readOnly(Map<String, Set<String>> result) {
+        Map<String, Set<String>> readOnly = new TreeMap<>();
+        result.forEach((letter, words) -> readOnly.put(letter, Collections.unmodifiableSet(words)));
+        return Collections.unmodifiableMap(readOnly);
+    }
+
+    /**
+     * Snapshot is magic number, version, key, number of letters and then every letter with its sorted words.
+     * Strings are written as int length and chars.
+     * It is written into a temporary file and moved, so a crashed JVM does not leave a broken snapshot.
+     */
+    private void writeSnapshot(Path snapshot, String key, Map<String, Set<String>> result) {
+        try {
+            Path temporary = Files.createTempFile(snapshot.getParent(), "snapshot", ".tmp");
+            try {
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                    output.writeInt(SNAPSHOT_MAGIC);
+                    output.writeInt(SNAPSHOT_VERSION);
+                    writeString(output, key);
+                    output.writeInt(result.size());
+                    for (Map.Entry<String, Set<String>> byFirstLetter : result.entrySet()) {
+                        writeString(output, byFirstLetter.getKey());
+                        output.writeInt(byFirstLetter.getValue().size());
+                        for (String word : byFirstLetter.getValue()) writeString(output, word);
+                    }
+                }
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Snapshot {} is not saved: {}", snapshot, e.getMessage());
+        }
+    }
+
+    /**
+     * Returns null if there is no snapshot or it belongs to another key, e.g. snapshot of the previous file version.
+     * Broken or foreign snapshot is deleted, so the result is converted and saved again.
+     * Every length is checked against the rest of the file before anything is allocated for it.
+     */
+    private Map<String, Set<String>> readSnapshot(Path snapshot, String key) {
+        if (!Files.exists(snapshot)) return null;
+        try (SnapshotInput input = new SnapshotInput(snapshot)) {
+            if (input.readInt() != SNAPSHOT_MAGIC || input.readInt() != SNAPSHOT_VERSION) throw new IOException("Illegal snapshot header");
+            if (!key.equals(input.readString())) return null;
+            Map<String, Set<String>> result = new TreeMap<>();
+            // every letter takes at least two ints and every word at least one
+            for (int letters = input.readLength(8); letters > 0; letters--) {
+                String letter = input.readString();
+                String[] words = new String[input.readLength(4)];
+                for (int i = 0; i < words.length; i++) words[i] = input.readString();
+                // words are already sorted, so the tree is built in linear time
+                result.put(letter, Collections.unmodifiableSet(HashSortCollector.sortedSet(words)));
+            }
+            return Collections.unmodifiableMap(result);
+        } catch (IOException e) {
+            LOGGER.warn("Snapshot {} is not read and is deleted: {}", snapshot, e.getMessage());
+            try {
+                Files.deleteIfExists(snapshot);
+            } catch (IOException deleteError) {
+                LOGGER.error("Snapshot {} is not deleted: {}", snapshot, deleteError.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        output.writeInt(string.length());
+        output.writeChars(string);
+    }
+
+    private static String contentHash(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static String sha256(String key) {
+        return hex(newDigest().digest(key.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return hex.toString();
+    }
+
+    /**
+     * Snapshot stream, which knows how many bytes are left, so lengths of a broken snapshot are not trusted.
+     */
+    private static final class SnapshotInput implements Closeable {
+
+        private final DataInputStream input;
+        private long remaining;
+
+        SnapshotInput(Path snapshot) throws IOException {
+            this.remaining = Files.size(snapshot);
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)));
+        }
+
+        int readInt() throws IOException {
+            remaining -= 4;
+            return input.readInt();
+        }
+
+        /**
+         * Reads the number of items, which take at least the passed bytes each.
+         */
+        int readLength(int itemSize) throws IOException {
+            int length = readInt();
+            if (length < 0 || (long) length * itemSize > remaining) throw new IOException("Illegal snapshot length " + length);
+            return length;
+        }
+
+        String readString() throws IOException {
+            char[] chars = new char[readLength(2)];
+            for (int i = 0; i < chars.length; i++) chars[i] = input.readChar();
+            remaining -= 2L * chars.length;
+            return new String(chars);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    private static final class Entry {
+
+        private final Map<String, Set<String>> result;
+        private final long size;
+
+        Entry(Map<String, Set<String>> result, long size) {
+            this.result = result;
+            this.size = size;
+        }
+    }
+}
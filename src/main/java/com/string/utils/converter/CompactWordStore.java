@@ -0,0 +1,418 @@
+package com.string.utils.converter;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.*;
+import java.util.function.IntBinaryOperator;
+
+import static com.string.utils.converter.StringToMapConverter.WORDS_COMPARATOR;
+
+/**
+ * Compact collector, which keeps words as encoded bytes instead of strings in tree sets.
+ * Every key has its own arena - heap or direct buffer, where distinct words are appended one after another.
+ * Words are deduplicated by open addressing hash table of int entry numbers, which is dropped when the arena is sealed.
+ * Sealed arena keeps only the bytes and two int arrays - entry offsets and entry numbers sorted by {@link StringToMapConverter#WORDS_COMPARATOR}.
+ * So retained memory per word is its encoded length plus 8 bytes, instead of string, its array and tree entry objects.
+ * Words are stored losslessly: when a word can not be encoded by the charset, e.g. U+FFFD of an undefined byte of a single byte charset,
+ * its arena is converted to UTF-16 chars of 2 bytes each, so it is not merged with a different word of the same replaced bytes.
+ *
+ * Result is a read-only map of read-only sets, which decode words on access, so it is slower to iterate than the default one.
+ * Arena offsets are int, so encoded words of a single key can not exceed 2Gb.
+ */
+class CompactWordStore implements WordCollector {
+
+    private static final int INITIAL_ARENA_CAPACITY = 1024;
+    private static final int INITIAL_ENTRIES_CAPACITY = 16;
+
+    private final Charset charset;
+    private final boolean direct;
+    private final CharsetEncoder encoder;
+    private final GroupingKey groupingKey;
+    /**
+     * Arenas by the key of the word, they are found by the chars of the word without a key string.
+     */
+    private KeyTable<Arena> arenas;
+    private char[] inputArray;
+    private CharBuffer inputView;
+
+    CompactWordStore(Charset charset, boolean direct, GroupingKey groupingKey) {
+        this.charset = charset;
+        this.direct = direct;
+        this.groupingKey = groupingKey;
+        this.arenas = groupingKey.newTable();
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    @Override
+    public void accept(char[] chars, int offset, int length) {
+        Arena arena = arenas.get(chars, offset, length);
+        if (arena == null) {
+            arena = new Arena(groupingKey.of(new String(chars, offset, length)));
+            arenas.put(chars, offset, length, arena);
+        }
+        // tokenizer reuses the same array, so the view is rarely recreated
+        if (chars != inputArray) {
+            inputArray = chars;
+            inputView = CharBuffer.wrap(chars);
+        }
+        inputView.limit(offset + length).position(offset);
+        arena.add(inputView, length);
+    }
+
+    @Override
+    public void merge(WordCollector other) {
+        ((CompactWordStore) other).arenas.forEachValue(otherArena -> {
+            Arena arena = arenas.get(otherArena.key);
+            if (arena == null) {
+                arenas.put(otherArena.key, otherArena);
+            } else {
+                arena.addAll(otherArena);
+                otherArena.release();
+            }
+        });
+        ((CompactWordStore) other).arenas = groupingKey.newTable();
+    }
+
+    @Override
+    public long distinctCount() {
+        long[] count = new long[1];
+        arenas.forEachValue(arena -> count[0] += arena.size);
+        return count[0];
+    }
+
+    @Override
+    public Map<String, Set<String>> result() {
+        Map<String, Set<String>> result = new TreeMap<>();
+        arenas.forEachValue(arena -> {
+            // leave only mapping which contains more than one word
+            if (arena.size < 2) {
+                arena.release();
+                return;
+            }
+            arena.seal();
+            result.put(arena.key, new ArenaWordSet(arena));
+        });
+        arenas = groupingKey.newTable();
+        return Collections.unmodifiableMap(result);
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Encoded words of a single key.
+     * Entry i occupies bytes from offsets[i] till offsets[i + 1], the last one - till the data position.
+     * Entries are encoded by the charset, or are UTF-16 chars if the arena is wide.
+     */
+    private final class Arena {
+
+        private final String key;
+        private ByteBuffer data = allocate(INITIAL_ARENA_CAPACITY);
+        private int[] offsets = new int[INITIAL_ENTRIES_CAPACITY];
+        private int size;
+        /**
+         * Hash table of entry numbers plus one, zero is an empty slot. Exists only till the arena is sealed.
+         */
+        private int[] slots = new int[INITIAL_ENTRIES_CAPACITY * 2];
+        /**
+         * Entry numbers in the order of the resulting set. Exists only when the arena is sealed.
+         */
+        private int[] order;
+        private boolean wide;
+
+        Arena(String key) {
+            this.key = key;
+        }
+
+        void add(CharBuffer word, int length) {
+            if (!wide) {
+                ensureCapacity((int) Math.ceil(length * (double) encoder.maxBytesPerChar()));
+                int start = data.position();
+                encoder.reset();
+                CoderResult result = encoder.encode(word, data, true);
+                if (!result.isError()) result = encoder.flush(data);
+                if (!result.isError()) {
+                    addEncoded(start);
+                    return;
+                }
+                data.position(start);
+                word.position(word.limit() - length);
+                widen();
+            }
+            ensureCapacity(length * 2);
+            int start = data.position();
+            while (word.hasRemaining()) data.putChar(word.get());
+            addEncoded(start);
+        }
+
+        void addAll(Arena other) {
+            if (other.wide && !wide) widen();
+            if (wide && !other.wide) {
+                for (int i = 0; i < other.size; i++) {
+                    String word = other.word(i);
+                    add(CharBuffer.wrap(word), word.length());
+                }
+                return;
+            }
+            ByteBuffer otherData = other.data.duplicate();
+            for (int i = 0; i < other.size; i++) {
+                otherData.limit(other.end(i)).position(other.offsets[i]);
+                ensureCapacity(otherData.remaining());
+                int start = data.position();
+                data.put(otherData);
+                addEncoded(start);
+            }
+        }
+
+        /**
+         * Re-encodes stored entries as UTF-16 chars, once per arena.
+         */
+        private void widen() {
+            int[] charOffsets = new int[size + 1];
+            char[] chars = decodeAll(charOffsets);
+            ByteBuffer widened = allocate(Math.max(INITIAL_ARENA_CAPACITY, charOffsets[size] * 2));
+            for (int i = 0; i < size; i++) {
+                offsets[i] = widened.position();
+                for (int j = charOffsets[i]; j < charOffsets[i + 1]; j++) widened.putChar(chars[j]);
+            }
+            free(data);
+            data = widened;
+            wide = true;
+            rehash(slots.length);
+        }
+
+        /**
+         * Keeps the bytes from start till data position as a new entry, or drops them if the same word is already stored.
+         */
+        private void addEncoded(int start) {
+            int end = data.position();
+            int mask = slots.length - 1;
+            for (int slot = hash(start, end) & mask; ; slot = (slot + 1) & mask) {
+                int entry = slots[slot] - 1;
+                if (entry < 0) {
+                    if (size == offsets.length) offsets = Arrays.copyOf(offsets, size * 2);
+                    offsets[size] = start;
+                    slots[slot] = ++size;
+                    if (size * 2 > slots.length) rehash(slots.length * 2);
+                    return;
+                }
+                if (equalBytes(entry, start, end)) {
+                    // duplicate - rollback
+                    data.position(start);
+                    return;
+                }
+            }
+        }
+
+        private boolean equalBytes(int entry, int start, int end) {
+            int entryStart = offsets[entry];
+            int entryEnd = entry + 1 < size ? offsets[entry + 1] : start;
+            if (entryEnd - entryStart != end - start) return false;
+            for (int i = 0; i < end - start; i++) {
+                if (data.get(entryStart + i) != data.get(start + i)) return false;
+            }
+            return true;
+        }
+
+        private int hash(int start, int end) {
+            int hash = 0x811C9DC5;
+            for (int i = start; i < end; i++) hash = (hash ^ data.get(i)) * 0x01000193;
+            return hash ^ (hash >>> 16);
+        }
+
+        private void rehash(int capacity) {
+            slots = new int[capacity];
+            int mask = slots.length - 1;
+            for (int entry = 0; entry < size; entry++) {
+                int slot = hash(offsets[entry], end(entry)) & mask;
+                while (slots[slot] != 0) slot = (slot + 1) & mask;
+                slots[slot] = entry + 1;
+            }
+        }
+
+        private void ensureCapacity(int length) {
+            if (data.remaining() >= length) return;
+            long required = (long) data.position() + length;
+            if (required > Integer.MAX_VALUE) throw new IllegalStateException("Words of key '" + key + "' exceed 2Gb");
+            grow((int) Math.min(Integer.MAX_VALUE, Math.max(required, data.capacity() * 2L)));
+        }
+
+        private void grow(int capacity) {
+            ByteBuffer grown = allocate(capacity);
+            data.flip();
+            grown.put(data);
+            free(data);
+            data = grown;
+        }
+
+        /**
+         * Drops the hash table, trims buffers and sorts entries once.
+         * Words are decoded into a single temporary char array for sorting, so only one letter is decoded at a time.
+         */
+        void seal() {
+            slots = null;
+            offsets = Arrays.copyOf(offsets, size);
+            if (data.remaining() > 0) grow(data.position());
+            int[] charOffsets = new int[size + 1];
+            char[] chars = decodeAll(charOffsets);
+            order = new int[size];
+            for (int i = 0; i < size; i++) order[i] = i;
+            sort(order, (a, b) -> {
+                int lengthA = charOffsets[a + 1] - charOffsets[a];
+                int lengthB = charOffsets[b + 1] - charOffsets[b];
+                if (lengthA != lengthB) return lengthB - lengthA;
+                for (int i = 0; i < lengthA; i++) {
+                    char charA = chars[charOffsets[a] + i];
+                    char charB = chars[charOffsets[b] + i];
+                    if (charA != charB) return charA - charB;
+                }
+                return 0;
+            });
+        }
+
+        private char[] decodeAll(int[] charOffsets) {
+            if (wide) {
+                char[] chars = new char[data.position() / 2];
+                for (int i = 0; i < chars.length; i++) chars[i] = data.getChar(i * 2);
+                for (int i = 0; i <= size; i++) charOffsets[i] = (i < size ? offsets[i] : data.position()) / 2;
+                return chars;
+            }
+            CharsetDecoder decoder = newDecoder();
+            CharBuffer chars = CharBuffer.allocate((int) Math.ceil(data.position() * (double) decoder.maxCharsPerByte()));
+            ByteBuffer entry = data.duplicate();
+            for (int i = 0; i < size; i++) {
+                entry.limit(end(i)).position(offsets[i]);
+                charOffsets[i] = chars.position();
+                decoder.reset();
+                decoder.decode(entry, chars, true);
+                decoder.flush(chars);
+            }
+            charOffsets[size] = chars.position();
+            return chars.array();
+        }
+
+        GroupingKey groupingKey() {
+            return groupingKey;
+        }
+
+        /**
+         * Data position is the end of the last entry, sealed arena keeps it equal to the limit.
+         */
+        int end(int entry) {
+            return entry + 1 < size ? offsets[entry + 1] : data.position();
+        }
+
+        String word(int entry) {
+            int start = offsets[entry];
+            int length = end(entry) - start;
+            if (wide) {
+                char[] chars = new char[length / 2];
+                for (int i = 0; i < chars.length; i++) chars[i] = data.getChar(start + i * 2);
+                return new String(chars);
+            }
+            if (data.hasArray()) return new String(data.array(), data.arrayOffset() + start, length, charset);
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) bytes[i] = data.get(start + i);
+            return new String(bytes, charset);
+        }
+
+        void release() {
+            free(data);
+            data = null;
+        }
+    }
+
+    private CharsetDecoder newDecoder() {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    private void free(ByteBuffer buffer) {
+        if (direct) MappedWindows.free(buffer);
+    }
+
+    /**
+     * Merge sort of int array by the comparator, without boxing.
+     */
+    private static void sort(int[] values, IntBinaryOperator comparator) {
+        int[] buffer = new int[values.length];
+        for (int width = 1; width < values.length; width *= 2) {
+            for (int from = 0; from < values.length - width; from += width * 2) {
+                int middle = from + width;
+                int to = Math.min(from + width * 2, values.length);
+                if (comparator.applyAsInt(values[middle - 1], values[middle]) <= 0) continue;
+                int left = from, right = middle, target = from;
+                while (left < middle && right < to) {
+                    buffer[target++] = comparator.applyAsInt(values[left], values[right]) <= 0 ? values[left++] : values[right++];
+                }
+                while (left < middle) buffer[target++] = values[left++];
+                while (right < to) buffer[target++] = values[right++];
+                System.arraycopy(buffer, from, values, from, to - from);
+            }
+        }
+    }
+
+    /**
+     * Read-only sorted set of a sealed arena. Words are decoded on every access.
+     */
+    private static final class ArenaWordSet extends AbstractSet<String> {
+
+        private final Arena arena;
+
+        ArenaWordSet(Arena arena) {
+            this.arena = arena;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int index;
+
+                @Override
+                public boolean hasNext() {
+                    return index < arena.size;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    return arena.word(arena.order[index++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return arena.size;
+        }
+
+        /**
+         * Binary search by {@link StringToMapConverter#WORDS_COMPARATOR}.
+         */
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof String)) return false;
+            String word = (String) o;
+            if (word.isEmpty() || !arena.key.equals(arena.groupingKey().of(word))) return false;
+            int low = 0;
+            int high = arena.size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = WORDS_COMPARATOR.compare(arena.word(arena.order[middle]), word);
+                if (comparison < 0) low = middle + 1;
+                else if (comparison > 0) high = middle - 1;
+                else return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses input of {@link StringToMapConverter#fromCompressedFile(String)}.
+ * Gzip is supported by the JDK, other codecs, e.g. zstd, are registered by {@link StringToMapConverter#registerCodec(CompressionCodec)}
+ * or are installed as services of this interface, so they are found by {@link java.util.ServiceLoader}.
+ */
+public interface CompressionCodec {
+
+    /**
+     * File name extension of compressed files including the dot, e.g. ".gz".
+     */
+    String extension();
+
+    /**
+     * Wraps the stream of compressed bytes, the returned stream is closed by the caller.
+     */
+    InputStream decompress(InputStream compressed) throws IOException;
+
+    /**
+     * Gzip codec of the JDK. Concatenated gzip members are decompressed as a single line.
+     */
+    static CompressionCodec gzip() {
+        return GzipCodec.INSTANCE;
+    }
+}
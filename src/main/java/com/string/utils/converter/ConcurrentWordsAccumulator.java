@@ -0,0 +1,173 @@
+package com.string.utils.converter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+
+import static com.string.utils.converter.StringToMapConverter.WORDS_COMPARATOR;
+
+/**
+ * Result, which is built by many threads at once, e.g. by producers of different parts of the traffic.
+ * Words are striped by their keys: every key has its own concurrent hash set, so threads adding words of different keys
+ * never contend, and words of the same key contend only on a bin of the set. Set of the key is found without locks.
+ * Words are sorted only by {@link #snapshot()}, as it is done by {@link HashSortCollector}.
+ *
+ * Instance is thread-safe. Snapshot does not stop adding threads, so it contains words, which are added before the call,
+ * and some of the words, which are added during the call.
+ */
+public class ConcurrentWordsAccumulator {
+
+    private final Buckets buckets;
+    private final WordConsumer wordAdder = this::addWord;
+    /**
+     * Tokenizers of {@link #addWords(CharSequence)} with their decoder and chunks are reused by every call of a thread.
+     */
+    private final ThreadLocal<WordTokenizer> tokenizers = ThreadLocal.withInitial(
+            () -> new WordTokenizer(StandardCharsets.UTF_8, StringToMapConverter.DEFAULT_BUFFER_SIZE, wordAdder));
+
+    /**
+     * Words are grouped by {@link GroupingKey#firstChar()}, as required by the task.
+     */
+    public ConcurrentWordsAccumulator() {
+        this(GroupingKey.firstChar());
+    }
+
+    public ConcurrentWordsAccumulator(GroupingKey groupingKey) {
+        if (groupingKey == null) throw new IllegalArgumentException("Illegal grouping key");
+        this.buckets = groupingKey instanceof GroupingKey.CodePointKey
+                ? new CodePointBuckets((GroupingKey.CodePointKey) groupingKey)
+                : new PrefixBuckets(groupingKey);
+    }
+
+    /**
+     * Adds a single word, it must be non-empty and should contain no whitespaces.
+     */
+    public void add(String word) {
+        if (word == null || word.isEmpty()) throw new IllegalArgumentException("Illegal word");
+        buckets.bucket(word).add(word);
+    }
+
+    /**
+     * Splits the text by {@link WordTokenizer} as {@link StringToMapConverter#fromString(CharSequence)} does and adds its words.
+     * Every thread has its own tokenizer, which is reset by the call, so threads never share it and a call allocates only the words.
+     */
+    public void addWords(CharSequence text) {
+        if (text == null) throw new IllegalArgumentException("Illegal text");
+        WordTokenizer tokenizer = tokenizers.get();
+        tokenizer.reset(wordAdder);
+        tokenizer.feed(text);
+        tokenizer.finish();
+    }
+
+    private void addWord(char[] chars, int offset, int length) {
+        String word = new String(chars, offset, length);
+        buckets.bucket(word).add(word);
+    }
+
+    /**
+     * Number of distinct words, including keys with a single word.
+     */
+    public long distinctCount() {
+        long[] count = new long[1];
+        buckets.forEach((key, words) -> count[0] += words.size());
+        return count[0];
+    }
+
+    /**
+     * Returns the map according to task requirements for the words added so far. The map is a copy, words can still be added.
+     */
+    public Map<String, Set<String>> snapshot() {
+        Map<String, Set<String>> snapshot = new TreeMap<>();
+        buckets.forEach((key, words) -> {
+            // size is only a hint while words are added, the copy is checked again
+            if (words.size() < 2) return;
+            String[] sorted = words.toArray(new String[0]);
+            if (sorted.length < 2) return;
+            Arrays.sort(sorted, WORDS_COMPARATOR);
+            snapshot.put(key, HashSortCollector.sortedSet(sorted));
+        });
+        return snapshot;
+    }
+
+    private interface Buckets {
+
+        /**
+         * Set of the key of the word, it is created by the first word of the key.
+         */
+        Set<String> bucket(String word);
+
+        void forEach(BiConsumer<String, Set<String>> action);
+    }
+
+    /**
+     * Sets of code point keys in pages of 256 code points, pages are created on demand and published by CAS.
+     */
+    private static final class CodePointBuckets implements Buckets {
+
+        private static final int PAGE_BITS = 8;
+        private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+        private final GroupingKey.CodePointKey key;
+        private final AtomicReferenceArray<AtomicReferenceArray<Set<String>>> pages =
+                new AtomicReferenceArray<>((Character.MAX_CODE_POINT >> PAGE_BITS) + 1);
+
+        CodePointBuckets(GroupingKey.CodePointKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public Set<String> bucket(String word) {
+            int code = key.code(word);
+            AtomicReferenceArray<Set<String>> page = pages.get(code >> PAGE_BITS);
+            if (page == null) {
+                pages.compareAndSet(code >> PAGE_BITS, null, new AtomicReferenceArray<>(PAGE_SIZE));
+                page = pages.get(code >> PAGE_BITS);
+            }
+            Set<String> words = page.get(code & (PAGE_SIZE - 1));
+            if (words == null) {
+                page.compareAndSet(code & (PAGE_SIZE - 1), null, ConcurrentHashMap.newKeySet());
+                words = page.get(code & (PAGE_SIZE - 1));
+            }
+            return words;
+        }
+
+        @Override
+        public void forEach(BiConsumer<String, Set<String>> action) {
+            for (int p = 0; p < pages.length(); p++) {
+                AtomicReferenceArray<Set<String>> page = pages.get(p);
+                if (page == null) continue;
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    Set<String> words = page.get(i);
+                    if (words != null) action.accept(GroupingKey.CodePointKey.key((p << PAGE_BITS) + i), words);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets of other keys in the concurrent map, which is read without locks.
+     */
+    private static final class PrefixBuckets implements Buckets {
+
+        private final GroupingKey key;
+        private final ConcurrentHashMap<String, Set<String>> sets = new ConcurrentHashMap<>();
+
+        PrefixBuckets(GroupingKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public Set<String> bucket(String word) {
+            String wordKey = key.of(word);
+            Set<String> words = sets.get(wordKey);
+            return words != null ? words : sets.computeIfAbsent(wordKey, k -> ConcurrentHashMap.newKeySet());
+        }
+
+        @Override
+        public void forEach(BiConsumer<String, Set<String>> action) {
+            sets.forEach(action);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.string.utils.converter;
+
+/**
+ * Receives metrics of every conversion, see {@link StringToMapConverter#setConversionListener(ConversionListener)}.
+ * It is invoked by the converting thread right before the result is returned, so it should be fast and thread-safe,
+ * e.g. it can pass metrics to a monitoring system. {@link ConversionMetricsRecorder} keeps them in memory.
+ */
+@FunctionalInterface
+public interface ConversionListener {
+
+    void converted(ConversionMetrics metrics);
+}
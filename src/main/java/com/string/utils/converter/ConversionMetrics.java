@@ -0,0 +1,107 @@
+package com.string.utils.converter;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable metrics of a single conversion.
+ */
+public final class ConversionMetrics {
+
+    private final String source;
+    private final long bytes;
+    private final long words;
+    private final long distinctWords;
+    private final long peakHeldWords;
+    private final long totalNanos;
+    private final Map<ConversionPhase, Long> phaseNanos;
+    private final Map<String, Integer> wordsPerLetter;
+
+    ConversionMetrics(String source, long bytes, long words, long distinctWords, long peakHeldWords, long totalNanos,
+                      Map<ConversionPhase, Long> phaseNanos, Map<String, Integer> wordsPerLetter) {
+        this.source = source;
+        this.bytes = bytes;
+        this.words = words;
+        this.distinctWords = distinctWords;
+        this.peakHeldWords = peakHeldWords;
+        this.totalNanos = totalNanos;
+        this.phaseNanos = Collections.unmodifiableMap(new EnumMap<>(phaseNanos));
+        this.wordsPerLetter = Collections.unmodifiableMap(wordsPerLetter);
+    }
+
+    /**
+     * Path of the converted file.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Number of all words including duplicates.
+     */
+    public long getWords() {
+        return words;
+    }
+
+    /**
+     * Number of distinct words including letters with a single word, which are pruned from the result.
+     * In top K mode only kept words are counted.
+     */
+    public long getDistinctWords() {
+        return distinctWords;
+    }
+
+    /**
+     * Peak number of words held in memory while grouping. In parallel mode it includes duplicates of different segments.
+     */
+    public long getPeakHeldWords() {
+        return peakHeldWords;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public Map<ConversionPhase, Long> getPhaseNanos() {
+        return phaseNanos;
+    }
+
+    /**
+     * Number of words of every letter of the result.
+     */
+    public Map<String, Integer> getWordsPerLetter() {
+        return wordsPerLetter;
+    }
+
+    public double getBytesPerSecond() {
+        return perSecond(bytes);
+    }
+
+    public double getWordsPerSecond() {
+        return perSecond(words);
+    }
+
+    /**
+     * Share of words which are repeats of previous ones.
+     */
+    public double getDuplicateRatio() {
+        return words == 0 ? 0 : 1 - (double) distinctWords / words;
+    }
+
+    private double perSecond(long count) {
+        return totalNanos == 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversionMetrics{source=" + source + ", bytes=" + bytes + ", words=" + words + ", distinctWords=" + distinctWords
+                + ", duplicateRatio=" + getDuplicateRatio() + ", peakHeldWords=" + peakHeldWords + ", totalNanos=" + totalNanos
+                + ", phaseNanos=" + phaseNanos + ", letters=" + wordsPerLetter.size() + "}";
+    }
+}
@@ -0,0 +1,53 @@
+package com.string.utils.converter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Default listener, which keeps metrics of the latest conversions in memory. Thread-safe.
+ */
+public class ConversionMetricsRecorder implements ConversionListener {
+
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private final int capacity;
+    private final Deque<ConversionMetrics> records = new ArrayDeque<>();
+
+    /**
+     * @param capacity number of the latest conversions to keep, older ones are dropped.
+     */
+    public ConversionMetricsRecorder(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Illegal capacity");
+        this.capacity = capacity;
+    }
+
+    public ConversionMetricsRecorder() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @Override
+    public synchronized void converted(ConversionMetrics metrics) {
+        if (records.size() == capacity) records.removeFirst();
+        records.addLast(metrics);
+    }
+
+    /**
+     * Metrics of the latest conversions, the oldest first.
+     */
+    public synchronized List<ConversionMetrics> getRecords() {
+        return new ArrayList<>(records);
+    }
+
+    /**
+     * Metrics of the latest conversion or null.
+     */
+    public synchronized ConversionMetrics last() {
+        return records.peekLast();
+    }
+
+    public synchronized void clear() {
+        records.clear();
+    }
+}
@@ -0,0 +1,28 @@
+package com.string.utils.converter;
+
+/**
+ * Phases of file conversion, which are timed separately, see {@link ConversionMetrics#getPhaseNanos()}.
+ * Decoding is not separated from splitting: for UTF-8 and single byte charsets only the bytes of a word are decoded
+ * right where it is found, so timing it apart would cost two clock reads per word. Pruning is a part of {@link #RESULT},
+ * as collectors skip letters with a single word while they build the map.
+ */
+public enum ConversionPhase {
+
+    /**
+     * Mapping of file windows. Pages are read from disk lazily, so most of the reading falls into {@link #GROUP}.
+     */
+    MAP,
+    /**
+     * Tokenizing, decoding and grouping of words into per letter sets. In parallel mode it includes mapping and merging of segments.
+     */
+    GROUP,
+    /**
+     * Insertion of words into per letter sets, which is a part of {@link #GROUP}, the rest of it is splitting and decoding.
+     * Estimated by timing of every 64th insertion. In parallel mode it is summed over all threads, so it can exceed the wall time of {@link #GROUP}.
+     */
+    INSERT,
+    /**
+     * Sorting, pruning of letters with a single word and building of the resulting map.
+     */
+    RESULT
+}
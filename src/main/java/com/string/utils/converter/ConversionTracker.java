@@ -0,0 +1,106 @@
+package com.string.utils.converter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Measures a single conversion. It is created only when a listener is set, so disabled metrics cost nothing.
+ */
+final class ConversionTracker {
+
+    /**
+     * Every n-th insertion is timed, so clock reads cost little compared with insertions themselves. Power of two.
+     */
+    private static final int INSERT_SAMPLING = 64;
+
+    private final String source;
+    private final long bytes;
+    private final long started = System.nanoTime();
+    private final Map<ConversionPhase, Long> phaseNanos = new EnumMap<>(ConversionPhase.class);
+
+    ConversionTracker(String source, long bytes) {
+        this.source = source;
+        this.bytes = bytes;
+    }
+
+    void add(ConversionPhase phase, long nanos) {
+        phaseNanos.merge(phase, nanos, Long::sum);
+    }
+
+    /**
+     * Wraps every created collector, so words are counted.
+     */
+    Supplier<WordCollector> counting(Supplier<WordCollector> collectors) {
+        return () -> new CountingCollector(collectors.get());
+    }
+
+    /**
+     * Builds the result of the counting collector, grouping time is the time since the start without mapping.
+     */
+    Map<String, Set<String>> finish(WordCollector collector, ConversionListener listener) {
+        long resultStarted = System.nanoTime();
+        add(ConversionPhase.GROUP, resultStarted - started - phaseNanos.getOrDefault(ConversionPhase.MAP, 0L));
+        CountingCollector counting = (CountingCollector) collector;
+        add(ConversionPhase.INSERT, counting.sampledInsertNanos * INSERT_SAMPLING);
+        long distinctWords = counting.distinctCount();
+        long peakHeldWords = Math.max(counting.peakHeldWords, distinctWords);
+        Map<String, Set<String>> result = counting.result();
+        long finished = System.nanoTime();
+        add(ConversionPhase.RESULT, finished - resultStarted);
+        Map<String, Integer> wordsPerLetter = new TreeMap<>();
+        result.forEach((letter, words) -> wordsPerLetter.put(letter, words.size()));
+        listener.converted(new ConversionMetrics(source, bytes, counting.words, distinctWords, peakHeldWords,
+                finished - started, phaseNanos, wordsPerLetter));
+        return result;
+    }
+
+    /**
+     * Counts all passed words and tracks the peak number of held words at merges.
+     */
+    private static final class CountingCollector implements WordCollector {
+
+        private final WordCollector delegate;
+        private long words;
+        private long peakHeldWords;
+        private long sampledInsertNanos;
+
+        CountingCollector(WordCollector delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void accept(char[] chars, int offset, int length) {
+            if ((++words & (INSERT_SAMPLING - 1)) != 0) {
+                delegate.accept(chars, offset, length);
+                return;
+            }
+            long insertStarted = System.nanoTime();
+            delegate.accept(chars, offset, length);
+            sampledInsertNanos += System.nanoTime() - insertStarted;
+        }
+
+        @Override
+        public void merge(WordCollector other) {
+            CountingCollector counting = (CountingCollector) other;
+            // both collectors are held till the merge
+            long held = delegate.distinctCount() + counting.delegate.distinctCount();
+            peakHeldWords = Math.max(held, Math.max(peakHeldWords, counting.peakHeldWords));
+            words += counting.words;
+            sampledInsertNanos += counting.sampledInsertNanos;
+            delegate.merge(counting.delegate);
+        }
+
+        @Override
+        public long distinctCount() {
+            return delegate.distinctCount();
+        }
+
+        @Override
+        public Map<String, Set<String>> result() {
+            return delegate.result();
+        }
+    }
+}
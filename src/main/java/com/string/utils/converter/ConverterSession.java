@@ -0,0 +1,104 @@
+package com.string.utils.converter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Reusable state of {@link StringToMapConverter#fromFile(String)} for workloads, which convert many small files one after another.
+ * Charset, decoder, tokenizer and read buffer are created once with the session and reused by every call,
+ * sets are ordered by the shared {@link StringToMapConverter#WORDS_COMPARATOR}, so a call allocates little more than its result.
+ * Files up to the positional read threshold are read by the reused buffer, as mapping and unmapping costs more than copying
+ * of a few pages. Bigger files are mapped by windows as {@link StringToMapConverter#fromFile(String)} does.
+ *
+ * Session takes the settings of the converter when it is created, later changes of the converter are not seen by it.
+ * Metrics are not collected. Session is not thread-safe, it should be confined to a thread,
+ * e.g. by {@code ThreadLocal.withInitial(converter::newSession)}.
+ */
+@Slf4j
+public class ConverterSession {
+
+    public static final int DEFAULT_POSITIONAL_READ_THRESHOLD = 256 * 1024;
+
+    private final int mappingWindowSize;
+    private final Supplier<WordCollector> collectors;
+    private final WordTokenizer tokenizer;
+    /**
+     * Heap buffer is scanned by tokenizer without copying.
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Files of this size or smaller are read instead of mapping. Default value is defined by {@link #DEFAULT_POSITIONAL_READ_THRESHOLD} constant.
+     */
+    private long positionalReadThreshold = DEFAULT_POSITIONAL_READ_THRESHOLD;
+
+    ConverterSession(int bufferSize, Charset charset, int mappingWindowSize, Supplier<WordCollector> collectors) {
+        this.mappingWindowSize = mappingWindowSize;
+        this.collectors = collectors;
+        this.tokenizer = new WordTokenizer(charset, bufferSize, null);
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    public long getPositionalReadThreshold() {
+        return positionalReadThreshold;
+    }
+
+    /**
+     * Zero maps every file.
+     */
+    public void setPositionalReadThreshold(long positionalReadThreshold) {
+        if (positionalReadThreshold < 0) throw new IllegalArgumentException("Illegal positional read threshold");
+        this.positionalReadThreshold = positionalReadThreshold;
+    }
+
+    /**
+     * Returns the same map as {@link StringToMapConverter#fromFile(String)} with the settings of the session.
+     * Read errors are logged and words read before them are returned, as it is done by the converter.
+     */
+    public Map<String, Set<String>> fromFile(String filePath) {
+        if (filePath == null || filePath.isEmpty()) throw new IllegalArgumentException("Illegal one line file path");
+        WordCollector collector = collectors.get();
+        tokenizer.reset(collector);
+        // file is checked by opening, so a call costs no separate lookup of the path
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), READ)) {
+            long size = channel.size();
+            if (size <= positionalReadThreshold) read(channel, size);
+            else map(channel, size);
+        } catch (NoSuchFileException | InvalidPathException e) {
+            throw new IllegalArgumentException("Illegal one line file path");
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage());
+        }
+        tokenizer.finish();
+        return collector.result();
+    }
+
+    private void read(FileChannel channel, long size) throws IOException {
+        long position = 0;
+        while (position < size) {
+            buffer.clear();
+            int readCount = channel.read(buffer, position);
+            if (readCount < 0) break;
+            position += readCount;
+            buffer.flip();
+            tokenizer.feed(buffer);
+        }
+    }
+
+    private void map(FileChannel channel, long size) throws IOException {
+        try (MappedWindows windows = new MappedWindows(channel, 0L, size, mappingWindowSize)) {
+            while (windows.hasNext()) tokenizer.feed(windows.next());
+        }
+    }
+}
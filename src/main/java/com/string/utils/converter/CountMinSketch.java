@@ -0,0 +1,46 @@
+package com.string.utils.converter;
+
+/**
+ * Count-Min sketch of frequencies of 64-bit hashes. Estimate is never less than the real frequency,
+ * it exceeds it by more than e / width of all counted hashes with probability e^-depth.
+ * Row indexes are derived from two halves of the hash, see Kirsch and Mitzenmacher, "Less hashing, same performance".
+ */
+final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[] counters;
+
+    CountMinSketch(int width, int depth) {
+        this.width = width;
+        this.depth = depth;
+        this.counters = new long[width * depth];
+    }
+
+    /**
+     * Counts the hash and returns its new estimate.
+     */
+    long add(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + index(hash, row);
+            estimate = Math.min(estimate, ++counters[index]);
+        }
+        return estimate;
+    }
+
+    long estimate(long hash) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) estimate = Math.min(estimate, counters[row * width + index(hash, row)]);
+        return estimate;
+    }
+
+    long sizeInBytes() {
+        return 8L * counters.length;
+    }
+
+    private int index(long hash, int row) {
+        int combined = (int) hash + row * (int) (hash >>> 32);
+        return (combined & Integer.MAX_VALUE) % width;
+    }
+}
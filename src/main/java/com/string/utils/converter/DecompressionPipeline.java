@@ -0,0 +1,111 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads the decompressed stream on its own thread and passes chunks to the accumulator on the calling thread,
+ * so decompression overlaps with grouping. Depth chunks are allocated once and circulate between two bounded queues:
+ * free chunks are filled by the decompressing thread, filled chunks are grouped and returned.
+ * The word which is split between chunks is carried over by the accumulator.
+ */
+final class DecompressionPipeline {
+
+    /**
+     * Marks the end of the stream in the queue of filled chunks.
+     */
+    private static final Chunk END = new Chunk(0);
+
+    private final InputStream stream;
+    private final BlockingQueue<Chunk> free;
+    /**
+     * One more place for {@link #END}, so it is always put without waiting.
+     */
+    private final BlockingQueue<Chunk> filled;
+    private volatile Exception error;
+
+    DecompressionPipeline(InputStream stream, int chunkSize, int depth) {
+        this.stream = stream;
+        this.free = new ArrayBlockingQueue<>(depth);
+        this.filled = new ArrayBlockingQueue<>(depth + 1);
+        for (int i = 0; i < depth; i++) free.add(new Chunk(chunkSize));
+    }
+
+    /**
+     * Feeds the whole stream into the accumulator. Stream is not closed, but it is not read any more when the method returns.
+     */
+    void feed(WordsAccumulator accumulator, String threadName) throws IOException {
+        Thread decompressor = new Thread(this::decompress, threadName);
+        decompressor.setDaemon(true);
+        decompressor.start();
+        try {
+            for (Chunk chunk = filled.take(); chunk != END; chunk = filled.take()) {
+                accumulator.feed(chunk.bytes, 0, chunk.length);
+                free.add(chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Decompression is interrupted");
+        } finally {
+            // decompressor is stopped before the stream can be closed by the caller
+            decompressor.interrupt();
+            joinUninterruptibly(decompressor);
+        }
+        Exception failure = error;
+        if (failure instanceof IOException) throw (IOException) failure;
+        if (failure != null) throw (RuntimeException) failure;
+    }
+
+    private void decompress() {
+        try {
+            while (true) {
+                Chunk chunk = free.take();
+                chunk.length = readFully(chunk.bytes);
+                if (chunk.length > 0) filled.add(chunk);
+                if (chunk.length < chunk.bytes.length) break;
+            }
+        } catch (IOException | RuntimeException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            // grouping is failed, nobody waits for chunks
+        } finally {
+            filled.add(END);
+        }
+    }
+
+    private int readFully(byte[] bytes) throws IOException {
+        int length = 0;
+        while (length < bytes.length) {
+            int readCount = stream.read(bytes, length, bytes.length - length);
+            if (readCount == -1) break;
+            length += readCount;
+        }
+        return length;
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    private static final class Chunk {
+
+        private final byte[] bytes;
+        private int length;
+
+        Chunk(int size) {
+            this.bytes = new byte[size];
+        }
+    }
+}
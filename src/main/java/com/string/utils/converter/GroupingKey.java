@@ -0,0 +1,224 @@
+package com.string.utils.converter;
+
+/**
+ * Defines the key, which words are grouped by, see {@link StringToMapConverter#setGroupingKey(GroupingKey)}.
+ * Keys are looked up by the chars of the word in {@link KeyTable}, so no key string is created for every word,
+ * only for every distinct key. Resulting map is sorted by keys as strings.
+ */
+public abstract class GroupingKey {
+
+    private static final GroupingKey FIRST_CHAR = new CodePointKey("firstChar") {
+        @Override
+        int code(char[] chars, int offset, int length) {
+            return chars[offset];
+        }
+
+        @Override
+        int code(String word) {
+            return word.charAt(0);
+        }
+    };
+    private static final GroupingKey FIRST_CODE_POINT = new CodePointKey("firstCodePoint") {
+        @Override
+        int code(char[] chars, int offset, int length) {
+            return Character.codePointAt(chars, offset, offset + length);
+        }
+
+        @Override
+        int code(String word) {
+            return word.codePointAt(0);
+        }
+    };
+    private static final GroupingKey CASE_FOLDED = new CodePointKey("caseFolded") {
+        @Override
+        int code(char[] chars, int offset, int length) {
+            return fold(Character.codePointAt(chars, offset, offset + length));
+        }
+
+        @Override
+        int code(String word) {
+            return fold(word.codePointAt(0));
+        }
+
+        private int fold(int codePoint) {
+            return Character.toLowerCase(Character.toUpperCase(codePoint));
+        }
+    };
+
+    private final String name;
+
+    private GroupingKey(String name) {
+        this.name = name;
+    }
+
+    /**
+     * The first char of the word, as required by the task. Surrogate pair is split, so its high surrogate is the key. Default key.
+     */
+    public static GroupingKey firstChar() {
+        return FIRST_CHAR;
+    }
+
+    /**
+     * The first code point of the word, so words starting with a supplementary character are grouped by the whole character.
+     */
+    public static GroupingKey firstCodePoint() {
+        return FIRST_CODE_POINT;
+    }
+
+    /**
+     * The first code point of the word in lower case after upper case mapping, so "Слово" and "слово" have the key "с".
+     * Words keep their case.
+     */
+    public static GroupingKey caseFolded() {
+        return CASE_FOLDED;
+    }
+
+    /**
+     * The first code points of the word, the whole word if it is shorter.
+     */
+    public static GroupingKey prefix(int codePoints) {
+        if (codePoints < 1) throw new IllegalArgumentException("Illegal prefix length");
+        return codePoints == 1 ? FIRST_CODE_POINT : new PrefixKey(codePoints);
+    }
+
+    /**
+     * Key of the non-empty word as a key of the resulting map.
+     */
+    public abstract String of(String word);
+
+    abstract <V> KeyTable<V> newTable();
+
+    /**
+     * Maximal number of code points of the key, so only the start of the word is decoded to find its key.
+     */
+    abstract int codePoints();
+
+    /**
+     * Compares keys of the words as strings, without creating them.
+     */
+    abstract int compare(String word1, String word2);
+
+    /**
+     * Name of the key, e.g. for cache keys and logs.
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Key, which is a single code point computed from the word.
+     */
+    abstract static class CodePointKey extends GroupingKey {
+
+        private CodePointKey(String name) {
+            super(name);
+        }
+
+        abstract int code(char[] chars, int offset, int length);
+
+        abstract int code(String word);
+
+        static String key(int code) {
+            return new String(Character.toChars(code));
+        }
+
+        @Override
+        public String of(String word) {
+            return key(code(word));
+        }
+
+        @Override
+        <V> KeyTable<V> newTable() {
+            return new KeyTable.CodePointTable<>(this);
+        }
+
+        @Override
+        int codePoints() {
+            return 1;
+        }
+
+        @Override
+        int compare(String word1, String word2) {
+            return compareCodes(code(word1), code(word2));
+        }
+
+        /**
+         * Order of the codes as strings: supplementary code point is ordered by its high surrogate, not by its value.
+         */
+        static int compareCodes(int code1, int code2) {
+            if (code1 == code2) return 0;
+            boolean bmp1 = Character.isBmpCodePoint(code1);
+            boolean bmp2 = Character.isBmpCodePoint(code2);
+            if (bmp1 == bmp2) return Integer.compare(code1, code2);
+            char first1 = bmp1 ? (char) code1 : Character.highSurrogate(code1);
+            char first2 = bmp2 ? (char) code2 : Character.highSurrogate(code2);
+            if (first1 != first2) return first1 - first2;
+            // single char is a prefix of the pair
+            return bmp1 ? -1 : 1;
+        }
+    }
+
+    /**
+     * Key, which is the first code points of the word.
+     */
+    static final class PrefixKey extends GroupingKey {
+
+        private final int codePoints;
+
+        private PrefixKey(int codePoints) {
+            super("prefix(" + codePoints + ")");
+            this.codePoints = codePoints;
+        }
+
+        /**
+         * Number of chars of the key at the start of the word.
+         */
+        int keyLength(char[] chars, int offset, int length) {
+            int end = offset + length;
+            int position = offset;
+            for (int i = 0; i < codePoints && position < end; i++) {
+                boolean pair = Character.isHighSurrogate(chars[position]) && position + 1 < end && Character.isLowSurrogate(chars[position + 1]);
+                position += pair ? 2 : 1;
+            }
+            return position - offset;
+        }
+
+        int keyLength(String word) {
+            int end = word.length();
+            int position = 0;
+            for (int i = 0; i < codePoints && position < end; i++) {
+                boolean pair = Character.isHighSurrogate(word.charAt(position)) && position + 1 < end && Character.isLowSurrogate(word.charAt(position + 1));
+                position += pair ? 2 : 1;
+            }
+            return position;
+        }
+
+        @Override
+        public String of(String word) {
+            return word.substring(0, keyLength(word));
+        }
+
+        @Override
+        <V> KeyTable<V> newTable() {
+            return new KeyTable.PrefixTable<>(this);
+        }
+
+        @Override
+        int codePoints() {
+            return codePoints;
+        }
+
+        @Override
+        int compare(String word1, String word2) {
+            int length1 = keyLength(word1);
+            int length2 = keyLength(word2);
+            for (int i = 0; i < Math.min(length1, length2); i++) {
+                char c1 = word1.charAt(i);
+                char c2 = word2.charAt(i);
+                if (c1 != c2) return c1 - c2;
+            }
+            return length1 - length2;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * See {@link CompressionCodec#gzip()}.
+ */
+final class GzipCodec implements CompressionCodec {
+
+    static final GzipCodec INSTANCE = new GzipCodec();
+    /**
+     * Default buffer of {@link GZIPInputStream} is 512 bytes, so the file would be read by tiny chunks.
+     */
+    private static final int INFLATER_BUFFER_SIZE = 64 * 1024;
+
+    private GzipCodec() {
+    }
+
+    @Override
+    public String extension() {
+        return ".gz";
+    }
+
+    @Override
+    public InputStream decompress(InputStream compressed) throws IOException {
+        return new GZIPInputStream(compressed, INFLATER_BUFFER_SIZE);
+    }
+
+    @Override
+    public String toString() {
+        return "gzip";
+    }
+}
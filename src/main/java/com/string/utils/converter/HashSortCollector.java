@@ -0,0 +1,250 @@
+package com.string.utils.converter;
+
+import java.util.*;
+
+import static com.string.utils.converter.StringToMapConverter.WORDS_COMPARATOR;
+
+/**
+ * Collector, which deduplicates words of every key by open addressing hash set and sorts each of them only once at the end.
+ * Duplicate word costs a hash computation and usually one comparison instead of O(log(n)) comparisons in the tree,
+ * and no string is created for it, as the word is looked up by its chars.
+ * Sorted words are turned into the same {@link TreeSet} as in {@link TreeSetCollector}, tree is built from sorted array in linear time.
+ */
+class HashSortCollector implements WordCollector {
+
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Estimated heap size of a stored word without its chars: string and array headers, two slots of the table.
+     */
+    private static final int WORD_OVERHEAD = 48;
+
+    private final GroupingKey groupingKey;
+    /**
+     * Sets by the key of the word, they are found by the chars of the word without a key string.
+     */
+    private KeyTable<WordHashSet> sets;
+    private long estimatedSize;
+
+    HashSortCollector(GroupingKey groupingKey) {
+        this.groupingKey = groupingKey;
+        this.sets = groupingKey.newTable();
+    }
+
+    @Override
+    public void accept(char[] chars, int offset, int length) {
+        WordHashSet words = sets.get(chars, offset, length);
+        if (words == null) {
+            words = new WordHashSet();
+            sets.put(chars, offset, length, words);
+        }
+        if (words.add(chars, offset, length)) estimatedSize += WORD_OVERHEAD + 2L * length;
+    }
+
+    @Override
+    public void merge(WordCollector other) {
+        estimatedSize += ((HashSortCollector) other).estimatedSize;
+        ((HashSortCollector) other).sets.forEach((key, otherWords) -> {
+            WordHashSet words = sets.get(key);
+            if (words == null) sets.put(key, otherWords);
+            else words.addAll(otherWords);
+        });
+        ((HashSortCollector) other).sets = groupingKey.newTable();
+    }
+
+    @Override
+    public long distinctCount() {
+        long[] count = new long[1];
+        sets.forEachValue(words -> count[0] += words.size);
+        return count[0];
+    }
+
+    @Override
+    public Map<String, Set<String>> result() {
+        Map<String, Set<String>> result = new TreeMap<>();
+        for (Map.Entry<String, String[]> byFirstLetter : drainSorted().entrySet()) {
+            // leave only mapping which contains more than one word
+            if (byFirstLetter.getValue().length < 2) continue;
+            result.put(byFirstLetter.getKey(), sortedSet(byFirstLetter.getValue()));
+        }
+        return result;
+    }
+
+    /**
+     * Estimated heap size of the stored words in bytes.
+     */
+    long estimatedSize() {
+        return estimatedSize;
+    }
+
+    /**
+     * Sorts words of every key, including keys with a single word, and empties the collector.
+     */
+    SortedMap<String, String[]> drainSorted() {
+        SortedMap<String, String[]> sorted = new TreeMap<>();
+        sets.forEach((key, words) -> {
+            String[] keyWords = words.toArray();
+            Arrays.sort(keyWords, WORDS_COMPARATOR);
+            sorted.put(key, keyWords);
+        });
+        sets = groupingKey.newTable();
+        estimatedSize = 0;
+        return sorted;
+    }
+
+    /**
+     * Open addressing hash set of strings with linear probing, which can be looked up by chars.
+     * Hash is the same as {@link String#hashCode()}, so it is computed once for the stored strings.
+     */
+    private static final class WordHashSet {
+
+        private String[] table = new String[INITIAL_CAPACITY];
+        private int size;
+
+        /**
+         * Returns false if the word is already stored.
+         */
+        boolean add(char[] chars, int offset, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) hash = 31 * hash + chars[offset + i];
+            int mask = table.length - 1;
+            int slot = spread(hash) & mask;
+            for (String word = table[slot]; word != null; word = table[slot]) {
+                if (word.hashCode() == hash && equal(word, chars, offset, length)) return false;
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = new String(chars, offset, length);
+            if (++size * 2 > table.length) resize();
+            return true;
+        }
+
+        void addAll(WordHashSet other) {
+            for (String word : other.table) {
+                if (word != null) add(word);
+            }
+        }
+
+        private void add(String word) {
+            int mask = table.length - 1;
+            int slot = spread(word.hashCode()) & mask;
+            for (String stored = table[slot]; stored != null; stored = table[slot]) {
+                if (stored.equals(word)) return;
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = word;
+            if (++size * 2 > table.length) resize();
+        }
+
+        private void resize() {
+            String[] old = table;
+            table = new String[old.length * 2];
+            int mask = table.length - 1;
+            for (String word : old) {
+                if (word == null) continue;
+                int slot = spread(word.hashCode()) & mask;
+                while (table[slot] != null) slot = (slot + 1) & mask;
+                table[slot] = word;
+            }
+        }
+
+        String[] toArray() {
+            String[] words = new String[size];
+            int index = 0;
+            for (String word : table) {
+                if (word != null) words[index++] = word;
+            }
+            return words;
+        }
+
+        private static boolean equal(String word, char[] chars, int offset, int length) {
+            if (word.length() != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (word.charAt(i) != chars[offset + i]) return false;
+            }
+            return true;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * Tree set of the words, which are already sorted by {@link StringToMapConverter#WORDS_COMPARATOR}.
+     * Tree is built from the sorted set in linear time instead of n insertions.
+     */
+    static TreeSet<String> sortedSet(String[] sorted) {
+        return new TreeSet<>(new SortedArray(sorted, 0, sorted.length));
+    }
+
+    /**
+     * Read-only range of the sorted array as a {@link SortedSet}, so {@link TreeSet} copies it in linear time.
+     */
+    private static final class SortedArray extends AbstractSet<String> implements SortedSet<String> {
+
+        private final String[] words;
+        private final int from;
+        private final int to;
+
+        SortedArray(String[] words, int from, int to) {
+            this.words = words;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Comparator<? super String> comparator() {
+            return WORDS_COMPARATOR;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return Collections.unmodifiableList(Arrays.asList(words).subList(from, to)).iterator();
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && Arrays.binarySearch(words, from, to, (String) o, WORDS_COMPARATOR) >= 0;
+        }
+
+        @Override
+        public String first() {
+            if (from == to) throw new NoSuchElementException();
+            return words[from];
+        }
+
+        @Override
+        public String last() {
+            if (from == to) throw new NoSuchElementException();
+            return words[to - 1];
+        }
+
+        @Override
+        public SortedSet<String> subSet(String fromElement, String toElement) {
+            if (WORDS_COMPARATOR.compare(fromElement, toElement) > 0) throw new IllegalArgumentException("Illegal range");
+            return new SortedArray(words, index(fromElement), Math.max(index(fromElement), index(toElement)));
+        }
+
+        @Override
+        public SortedSet<String> headSet(String toElement) {
+            return new SortedArray(words, from, index(toElement));
+        }
+
+        @Override
+        public SortedSet<String> tailSet(String fromElement) {
+            return new SortedArray(words, index(fromElement), to);
+        }
+
+        /**
+         * Index of the element or of the first greater word inside the range.
+         */
+        private int index(String element) {
+            int index = Arrays.binarySearch(words, from, to, element, WORDS_COMPARATOR);
+            return index >= 0 ? index : -index - 1;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.string.utils.converter;
+
+import com.string.utils.creator.PathChecker;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Incremental version of {@link StringToMapConverter#fromFile(String)} for one line files which grow by appends.
+ * Every {@link #refresh()} maps and groups only the bytes appended since the previous call and adds them into the kept sets,
+ * so its cost depends on the size of the appended tail instead of the whole file.
+ *
+ * Bytes are processed up to the last whitespace only. Bytes after it are the pending word, which can be continued by the next append,
+ * so it is re-read by the next refresh and is a part of the returned map only till then.
+ * Letters with a single word are pruned only when the map is returned, so a letter can come back when its second word is appended.
+ * The file is considered as replaced and is processed from the beginning, if it becomes shorter than the processed offset,
+ * if its file key (inode) changes, e.g. after an editor saves it by rename, if it is modified without growing,
+ * or if the last processed bytes are changed by a rewrite in place.
+ *
+ * Cutting by bytes is valid only for charsets which encode whitespaces as single bytes (UTF-8, single byte charsets).
+ * Instance is stateful and is not thread-safe.
+ */
+@Slf4j
+public class IncrementalConverter {
+
+    /**
+     * Number of the last processed bytes, which are compared by every refresh to detect a rewrite in place.
+     */
+    private static final int CHECKED_TAIL_SIZE = 64;
+
+    private final String filePath;
+    private final int bufferSize;
+    private final Charset charset;
+    private final int mappingWindowSize;
+    private final GroupingKey groupingKey;
+    private TreeSetCollector collector;
+    /**
+     * Position of the first byte, which is not grouped yet, i.e. the start of the pending word.
+     */
+    private long offset;
+    private String pendingWord;
+    /**
+     * Attributes and the last processed bytes of the file seen by the previous refresh, null before the first one.
+     */
+    private Object fileKey;
+    private FileTime lastModified;
+    private long size;
+    private byte[] processedTail;
+
+    /**
+     * Buffer size, charset, mapping window size and grouping key of the passed converter are used.
+     */
+    public IncrementalConverter(StringToMapConverter converter, String filePath) {
+        if (converter == null) throw new IllegalArgumentException("Illegal converter");
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        Charset charset = Charset.forName(converter.getCharsetName());
+        if (!WordTokenizer.isCutByWhitespaceBytes(charset)) throw new IllegalArgumentException("Illegal charset for incremental processing");
+        this.filePath = filePath;
+        this.bufferSize = converter.getBufferSize();
+        this.charset = charset;
+        this.mappingWindowSize = converter.getMappingWindowSize();
+        this.groupingKey = converter.getGroupingKey();
+        this.collector = new TreeSetCollector(groupingKey);
+    }
+
+    /**
+     * Groups the appended bytes and returns the map according to task requirements for the whole current file.
+     * Sets of the map are read-only views, which are changed by the next refresh.
+     */
+    public Map<String, Set<String>> refresh() {
+        Path path = Paths.get(filePath);
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long size = channel.size();
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (isReplaced(channel, size, attributes)) {
+                LOGGER.warn("File {} is replaced after processed offset {}, it is processed from the beginning", filePath, offset);
+                reset();
+            }
+            long cut = lastCut(channel, size);
+            if (cut > offset) {
+                WordsAccumulator accumulator = new WordsAccumulator(bufferSize, charset, collector);
+                try (MappedWindows windows = new MappedWindows(channel, offset, cut, mappingWindowSize)) {
+                    while (windows.hasNext()) accumulator.feed(windows.next());
+                }
+                // the line is cut right after a whitespace, so no word is left in the tokenizer
+                accumulator.finishCollecting();
+                offset = cut;
+            }
+            pendingWord = readPendingWord(channel, size);
+            fileKey = attributes.fileKey();
+            lastModified = attributes.lastModifiedTime();
+            this.size = size;
+            int tailSize = (int) Math.min(offset, CHECKED_TAIL_SIZE);
+            processedTail = read(channel, offset - tailSize, tailSize).array();
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage());
+        }
+        return result();
+    }
+
+    /**
+     * Offset of the bytes, which are grouped by the next refresh.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Drops all grouped words, so the next refresh processes the file from the beginning.
+     */
+    public void reset() {
+        collector = new TreeSetCollector(groupingKey);
+        offset = 0;
+        pendingWord = null;
+        fileKey = null;
+        lastModified = null;
+        size = 0;
+        processedTail = null;
+    }
+
+    /**
+     * Appends only grow the file and keep its key and processed bytes. File key is null on file systems without it.
+     */
+    private boolean isReplaced(FileChannel channel, long size, BasicFileAttributes attributes) throws IOException {
+        if (lastModified == null) return false;
+        if (size < offset) return true;
+        if (attributes.fileKey() != null && !attributes.fileKey().equals(fileKey)) return true;
+        if (size == this.size && !attributes.lastModifiedTime().equals(lastModified)) return true;
+        return !Arrays.equals(processedTail, read(channel, offset - processedTail.length, processedTail.length).array());
+    }
+
+    /**
+     * Returns position after the last whitespace of the unprocessed bytes, or the offset if there is no whitespace.
+     * Bytes are scanned backwards, so only the pending word is read.
+     */
+    private long lastCut(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        long end = size;
+        while (end > offset) {
+            long start = Math.max(offset, end - bufferSize);
+            buffer.clear();
+            buffer.limit((int) (end - start));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, start + buffer.position()) == -1) throw new IOException("File " + filePath + " is truncated");
+            }
+            for (int i = buffer.limit() - 1; i >= 0; i--) {
+                if (WordTokenizer.isWhitespace(buffer.get(i))) return start + i + 1;
+            }
+            end = start;
+        }
+        return offset;
+    }
+
+    private String readPendingWord(FileChannel channel, long size) throws IOException {
+        if (size == offset) return null;
+        if (size - offset > Integer.MAX_VALUE) throw new IOException("Word at " + offset + " is too long");
+        ByteBuffer bytes = read(channel, offset, (int) (size - offset));
+        bytes.flip();
+        return charset.decode(bytes).toString();
+    }
+
+    private ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(length);
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, position + bytes.position()) == -1) throw new IOException("File " + filePath + " is truncated");
+        }
+        return bytes;
+    }
+
+    /**
+     * Kept sets are returned as views, only the set of the pending word key is copied.
+     */
+    private Map<String, Set<String>> result() {
+        Map<String, Set<String>> result = new TreeMap<>();
+        collector.words().forEach((key, words) -> result.put(key, Collections.unmodifiableSet(words)));
+        if (pendingWord != null) {
+            String key = groupingKey.of(pendingWord);
+            Set<String> words = new TreeSet<>(StringToMapConverter.WORDS_COMPARATOR);
+            words.addAll(result.getOrDefault(key, Collections.emptySet()));
+            words.add(pendingWord);
+            result.put(key, Collections.unmodifiableSet(words));
+        }
+        return StringToMapConverter.prune(result);
+    }
+}
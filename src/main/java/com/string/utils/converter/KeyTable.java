@@ -0,0 +1,307 @@
+package com.string.utils.converter;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Values of the collector by {@link GroupingKey}, e.g. sets of words. Value is looked up by chars of the word without allocation,
+ * key string is created once, when the key is added. Table is not sorted, {@link #sorted()} sorts it once at the end.
+ * Key string is a word of its own key, so tables are merged by {@link #get(String)} and {@link #put(String, Object)} with keys of another table.
+ */
+abstract class KeyTable<V> {
+
+    abstract V get(char[] chars, int offset, int length);
+
+    abstract void put(char[] chars, int offset, int length, V value);
+
+    abstract V get(String word);
+
+    abstract void put(String word, V value);
+
+    /**
+     * Passes every key and value in no particular order.
+     */
+    abstract void forEach(BiConsumer<String, V> action);
+
+    /**
+     * Passes every value in no particular order without creating keys.
+     */
+    abstract void forEachValue(Consumer<V> action);
+
+    SortedMap<String, V> sorted() {
+        SortedMap<String, V> sorted = new TreeMap<>();
+        forEach(sorted::put);
+        return sorted;
+    }
+
+    /**
+     * Table of code point keys. Keys of dense alphabets, e.g. Latin or Cyrillic, are indexed in the array,
+     * which covers pages of 256 code points around the first key. Keys, which would make it longer than {@link #MAX_DENSE_SPAN},
+     * are kept in open addressing hash table of int keys, so neither keys nor values are boxed.
+     */
+    static final class CodePointTable<V> extends KeyTable<V> {
+
+        private static final int PAGE_SIZE = 256;
+        private static final int MAX_DENSE_SPAN = 16 * PAGE_SIZE;
+        private static final int INITIAL_SPARSE_CAPACITY = 16;
+
+        private final GroupingKey.CodePointKey key;
+        private Object[] dense;
+        private int base;
+        /**
+         * Code plus one, zero is an empty slot.
+         */
+        private int[] sparseCodes;
+        private Object[] sparseValues;
+        private int sparseSize;
+
+        CodePointTable(GroupingKey.CodePointKey key) {
+            this.key = key;
+        }
+
+        @Override
+        V get(char[] chars, int offset, int length) {
+            return get(key.code(chars, offset, length));
+        }
+
+        @Override
+        void put(char[] chars, int offset, int length, V value) {
+            put(key.code(chars, offset, length), value);
+        }
+
+        @Override
+        V get(String word) {
+            return get(key.code(word));
+        }
+
+        @Override
+        void put(String word, V value) {
+            put(key.code(word), value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void forEach(BiConsumer<String, V> action) {
+            if (dense != null) {
+                for (int i = 0; i < dense.length; i++) {
+                    if (dense[i] != null) action.accept(GroupingKey.CodePointKey.key(base + i), (V) dense[i]);
+                }
+            }
+            for (int slot = 0; sparseSize > 0 && slot < sparseCodes.length; slot++) {
+                if (sparseCodes[slot] != 0) action.accept(GroupingKey.CodePointKey.key(sparseCodes[slot] - 1), (V) sparseValues[slot]);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void forEachValue(Consumer<V> action) {
+            if (dense != null) {
+                for (Object value : dense) {
+                    if (value != null) action.accept((V) value);
+                }
+            }
+            for (int slot = 0; sparseSize > 0 && slot < sparseCodes.length; slot++) {
+                if (sparseCodes[slot] != 0) action.accept((V) sparseValues[slot]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private V get(int code) {
+            int index = code - base;
+            if (dense != null && index >= 0 && index < dense.length) return (V) dense[index];
+            if (sparseSize == 0) return null;
+            int mask = sparseCodes.length - 1;
+            for (int slot = spread(code) & mask; sparseCodes[slot] != 0; slot = (slot + 1) & mask) {
+                if (sparseCodes[slot] == code + 1) return (V) sparseValues[slot];
+            }
+            return null;
+        }
+
+        private void put(int code, V value) {
+            if (dense == null) {
+                base = code & -PAGE_SIZE;
+                dense = new Object[PAGE_SIZE];
+            }
+            int index = code - base;
+            if (index < 0 || index >= dense.length) {
+                int from = Math.min(base, code & -PAGE_SIZE);
+                int to = Math.max(base + dense.length, (code & -PAGE_SIZE) + PAGE_SIZE);
+                if (to - from > MAX_DENSE_SPAN) {
+                    putSparse(code, value);
+                    return;
+                }
+                growDense(from, to);
+                index = code - base;
+            }
+            dense[index] = value;
+        }
+
+        /**
+         * Covers the range by the dense array and moves sparse keys of the range into it.
+         */
+        private void growDense(int from, int to) {
+            Object[] grown = new Object[to - from];
+            System.arraycopy(dense, 0, grown, base - from, dense.length);
+            dense = grown;
+            base = from;
+            if (sparseSize == 0) return;
+            int[] codes = sparseCodes;
+            Object[] values = sparseValues;
+            sparseCodes = new int[codes.length];
+            sparseValues = new Object[values.length];
+            sparseSize = 0;
+            for (int slot = 0; slot < codes.length; slot++) {
+                if (codes[slot] == 0) continue;
+                int code = codes[slot] - 1;
+                if (code >= from && code < to) dense[code - from] = values[slot];
+                else putSparse(code, values[slot]);
+            }
+        }
+
+        private void putSparse(int code, Object value) {
+            if (sparseCodes == null) {
+                sparseCodes = new int[INITIAL_SPARSE_CAPACITY];
+                sparseValues = new Object[INITIAL_SPARSE_CAPACITY];
+            }
+            int mask = sparseCodes.length - 1;
+            int slot = spread(code) & mask;
+            while (sparseCodes[slot] != 0 && sparseCodes[slot] != code + 1) slot = (slot + 1) & mask;
+            if (sparseCodes[slot] == 0) sparseSize++;
+            sparseCodes[slot] = code + 1;
+            sparseValues[slot] = value;
+            if (sparseSize * 2 > sparseCodes.length) resizeSparse();
+        }
+
+        private void resizeSparse() {
+            int[] codes = sparseCodes;
+            Object[] values = sparseValues;
+            sparseCodes = new int[codes.length * 2];
+            sparseValues = new Object[values.length * 2];
+            sparseSize = 0;
+            for (int slot = 0; slot < codes.length; slot++) {
+                if (codes[slot] != 0) putSparse(codes[slot] - 1, values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Table of prefix keys. Open addressing hash table with linear probing, key is compared with the prefix of the word by chars.
+     * Hash is the same as {@link String#hashCode()}, so it is computed once for the stored keys.
+     */
+    static final class PrefixTable<V> extends KeyTable<V> {
+
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final GroupingKey.PrefixKey key;
+        private String[] keys = new String[INITIAL_CAPACITY];
+        private Object[] values = new Object[INITIAL_CAPACITY];
+        private int size;
+
+        PrefixTable(GroupingKey.PrefixKey key) {
+            this.key = key;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        V get(char[] chars, int offset, int length) {
+            int slot = slot(chars, offset, key.keyLength(chars, offset, length));
+            return (V) values[slot];
+        }
+
+        @Override
+        void put(char[] chars, int offset, int length, V value) {
+            int keyLength = key.keyLength(chars, offset, length);
+            int slot = slot(chars, offset, keyLength);
+            if (keys[slot] == null) add(slot, new String(chars, offset, keyLength), value);
+            else values[slot] = value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        V get(String word) {
+            return (V) values[slot(word, key.keyLength(word))];
+        }
+
+        @Override
+        void put(String word, V value) {
+            int keyLength = key.keyLength(word);
+            int slot = slot(word, keyLength);
+            if (keys[slot] == null) add(slot, word.substring(0, keyLength), value);
+            else values[slot] = value;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void forEach(BiConsumer<String, V> action) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != null) action.accept(keys[slot], (V) values[slot]);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void forEachValue(Consumer<V> action) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != null) action.accept((V) values[slot]);
+            }
+        }
+
+        /**
+         * Slot of the key or the empty slot, where it should be added.
+         */
+        private int slot(char[] chars, int offset, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) hash = 31 * hash + chars[offset + i];
+            int mask = keys.length - 1;
+            int slot = spread(hash) & mask;
+            for (String stored = keys[slot]; stored != null; stored = keys[slot]) {
+                if (stored.hashCode() == hash && equal(stored, chars, offset, length)) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private int slot(String word, int length) {
+            int hash = 0;
+            for (int i = 0; i < length; i++) hash = 31 * hash + word.charAt(i);
+            int mask = keys.length - 1;
+            int slot = spread(hash) & mask;
+            for (String stored = keys[slot]; stored != null; stored = keys[slot]) {
+                if (stored.hashCode() == hash && stored.length() == length && stored.regionMatches(0, word, 0, length)) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void add(int slot, String wordKey, V value) {
+            keys[slot] = wordKey;
+            values[slot] = value;
+            if (++size * 2 <= keys.length) return;
+            String[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new String[oldKeys.length * 2];
+            values = new Object[oldValues.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null) continue;
+                int newSlot = slot(oldKeys[i], oldKeys[i].length());
+                keys[newSlot] = oldKeys[i];
+                values[newSlot] = oldValues[i];
+            }
+        }
+
+        private static boolean equal(String stored, char[] chars, int offset, int length) {
+            if (stored.length() != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (stored.charAt(i) != chars[offset + i]) return false;
+            }
+            return true;
+        }
+    }
+
+    static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,371 @@
+package com.string.utils.converter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+import static com.string.utils.converter.StringToMapConverter.WORDS_COMPARATOR;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+/**
+ * Result of {@link StringToMapConverter#fromFileLazy(String)}, which is built in two passes.
+ * The first pass scans the file and keeps only byte offsets and lengths of words in primitive arrays of their keys,
+ * only the start of every word is decoded to find its key. Words of a key are decoded, deduplicated and sorted
+ * on the first access to the key, then the set is cached and the offsets are dropped.
+ * So keys, which are never accessed, cost only their offsets, and {@link #keySet()} costs nothing at all.
+ *
+ * Keys with a single distinct word are excluded by the first pass already: words are compared by lengths and hashes of their bytes,
+ * and words of the same length and hash are compared with the bytes of the first word of their key, which are copied once.
+ * Only keys of repeated words longer than the buffer are checked by reading the words back.
+ * Instance is thread-safe and read-only. The file must not change till the map is closed,
+ * sets which are not accessed before {@link #close()} can not be accessed after it.
+ */
+public class LazyWordMap extends AbstractMap<String, Set<String>> implements Closeable {
+
+    private static final int INITIAL_LETTER_CAPACITY = 8;
+    private static final int MIN_WORD_CAPACITY = 64;
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final int mappingWindowSize;
+    private final SortedMap<String, Letter> letters = new TreeMap<>();
+    private boolean closed;
+
+    /**
+     * Runs the first pass over the whole channel, which is closed by {@link #close()}.
+     */
+    LazyWordMap(FileChannel channel, Charset charset, GroupingKey groupingKey, int bufferSize, int mappingWindowSize) throws IOException {
+        this.channel = channel;
+        this.charset = charset;
+        this.mappingWindowSize = mappingWindowSize;
+        KeyTable<Letter> table = new Indexer(charset, groupingKey, bufferSize).index();
+        List<IOException> errors = new ArrayList<>(1);
+        table.forEach((key, letter) -> {
+            try {
+                letter.firstBytes = null;
+                if (letter.count > 1 && (letter.distinct || letter.unchecked && hasDistinctWords(letter))) letters.put(key, letter);
+            } catch (IOException e) {
+                errors.add(e);
+            }
+        });
+        if (!errors.isEmpty()) throw errors.get(0);
+    }
+
+    /**
+     * Sorted set of the key, which is built on the first call.
+     */
+    @Override
+    public Set<String> get(Object key) {
+        Letter letter = letters.get(key);
+        return letter == null ? null : words(letter);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return letters.containsKey(key);
+    }
+
+    /**
+     * Keys in the resulting order, no set is built.
+     */
+    @Override
+    public Set<String> keySet() {
+        return Collections.unmodifiableSet(letters.keySet());
+    }
+
+    @Override
+    public int size() {
+        return letters.size();
+    }
+
+    /**
+     * Entries in the resulting order, every set is built when its entry is reached.
+     */
+    @Override
+    public Set<Entry<String, Set<String>>> entrySet() {
+        return new AbstractSet<Entry<String, Set<String>>>() {
+            @Override
+            public Iterator<Entry<String, Set<String>>> iterator() {
+                Iterator<Entry<String, Letter>> entries = letters.entrySet().iterator();
+                return new Iterator<Entry<String, Set<String>>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Set<String>> next() {
+                        Entry<String, Letter> entry = entries.next();
+                        return new SimpleImmutableEntry<>(entry.getKey(), words(entry.getValue()));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return letters.size();
+            }
+        };
+    }
+
+    /**
+     * Checks that set of the key is already built.
+     */
+    boolean isMaterialized(String key) {
+        Letter letter = letters.get(key);
+        return letter != null && letter.words != null;
+    }
+
+    /**
+     * Closes the file. Sets, which are already built, are still accessible.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        channel.close();
+    }
+
+    private Set<String> words(Letter letter) {
+        Set<String> words = letter.words;
+        return words != null ? words : materialize(letter);
+    }
+
+    /**
+     * Offsets of a key are increasing, so its words are read by sliding windows through the file.
+     */
+    private synchronized Set<String> materialize(Letter letter) {
+        if (letter.words != null) return letter.words;
+        if (closed) throw new IllegalStateException("Lazy map is closed");
+        Set<String> words = new TreeSet<>(WORDS_COMPARATOR);
+        MappedByteBuffer window = null;
+        long windowStart = 0;
+        long windowEnd = 0;
+        byte[] bytes = new byte[MIN_WORD_CAPACITY];
+        try {
+            long size = channel.size();
+            for (int i = 0; i < letter.count; i++) {
+                long offset = letter.offsets[i];
+                int length = letter.lengths[i];
+                if (offset + length > windowEnd) {
+                    if (window != null) MappedWindows.unmap(window);
+                    windowStart = offset;
+                    windowEnd = Math.min(size, offset + Math.max(mappingWindowSize, length));
+                    window = channel.map(READ_ONLY, windowStart, windowEnd - windowStart);
+                }
+                if (length > bytes.length) bytes = new byte[Math.max(bytes.length * 2, length)];
+                window.position((int) (offset - windowStart));
+                window.get(bytes, 0, length);
+                words.add(new String(bytes, 0, length, charset));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Words are not read: " + e.getMessage(), e);
+        } finally {
+            if (window != null) MappedWindows.unmap(window);
+        }
+        letter.words = Collections.unmodifiableSet(words);
+        letter.offsets = null;
+        letter.lengths = null;
+        return letter.words;
+    }
+
+    /**
+     * Compares bytes of all words of the key with the first one, for keys of the same long words, which are not compared by the first pass.
+     */
+    private boolean hasDistinctWords(Letter letter) throws IOException {
+        ByteBuffer first = read(letter.offsets[0], letter.lengths[0]);
+        for (int i = 1; i < letter.count; i++) {
+            first.rewind();
+            if (!first.equals(read(letter.offsets[i], letter.lengths[i]))) return true;
+        }
+        return false;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) == -1) throw new IOException("File is truncated at " + position);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Offsets and lengths of words of a key, which are replaced by the set of words on the first access.
+     */
+    private static final class Letter {
+
+        private long[] offsets = new long[INITIAL_LETTER_CAPACITY];
+        private int[] lengths = new int[INITIAL_LETTER_CAPACITY];
+        private int count;
+        private int firstLength;
+        private int firstHash;
+        /**
+         * Bytes of the first word, till words are found distinct. Null for words longer than the buffer.
+         */
+        private byte[] firstBytes;
+        /**
+         * True when there are words, which bytes differ.
+         */
+        private boolean distinct;
+        /**
+         * True when long words of the same length and hash are not compared yet.
+         */
+        private boolean unchecked;
+        private volatile Set<String> words;
+
+        /**
+         * Bytes of the word are passed if it is not longer than the buffer.
+         */
+        void add(long offset, int length, int hash, byte[] bytes) {
+            if (count == 0) {
+                firstLength = length;
+                firstHash = hash;
+                if (bytes != null) firstBytes = Arrays.copyOf(bytes, length);
+            } else if (!distinct && !unchecked) {
+                if (length != firstLength || hash != firstHash) distinct = true;
+                else if (firstBytes == null) unchecked = true;
+                else distinct = !sameBytes(bytes, firstBytes);
+                if (distinct) firstBytes = null;
+            }
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            offsets[count] = offset;
+            lengths[count] = length;
+            count++;
+        }
+
+        private static boolean sameBytes(byte[] bytes, byte[] first) {
+            for (int i = 0; i < first.length; i++) {
+                if (bytes[i] != first[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * The first pass. The file is mapped by windows and copied into the reused chunk, whitespaces are searched in bytes,
+     * as it is done by {@link WordTokenizer}. Only the bytes of the key are kept for the word, which is split between chunks.
+     */
+    private final class Indexer {
+
+        private final GroupingKey groupingKey;
+        private final KeyTable<Letter> table;
+        private final byte[] chunk;
+        private final char[] singleByteChars;
+        private final CharsetDecoder decoder;
+        private final byte[] keyBytes;
+        private final ByteBuffer keyBytesView;
+        private final char[] keyChars;
+        private final CharBuffer keyCharsView;
+        /**
+         * Bytes of the current word up to the chunk length, they are compared with the first word of the key.
+         */
+        private byte[] wordBytes = new byte[MIN_WORD_CAPACITY];
+        private int wordLength;
+        private long wordStart = -1;
+        private int wordHash;
+        private int keyBytesLength;
+
+        Indexer(Charset charset, GroupingKey groupingKey, int bufferSize) {
+            this.groupingKey = groupingKey;
+            this.table = groupingKey.newTable();
+            this.chunk = new byte[bufferSize];
+            boolean utf8 = StandardCharsets.UTF_8.equals(charset);
+            this.singleByteChars = utf8 ? null : WordTokenizer.decodeAllBytes(charset);
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            // code point takes up to 4 bytes in UTF-8 and a single byte in single byte charsets
+            this.keyBytes = new byte[groupingKey.codePoints() * (utf8 ? 4 : 1)];
+            this.keyBytesView = ByteBuffer.wrap(keyBytes);
+            this.keyChars = new char[keyBytes.length];
+            this.keyCharsView = CharBuffer.wrap(keyChars);
+        }
+
+        KeyTable<Letter> index() throws IOException {
+            long size = channel.size();
+            try (MappedWindows windows = new MappedWindows(channel, 0L, size, mappingWindowSize)) {
+                long position = 0;
+                while (windows.hasNext()) {
+                    MappedByteBuffer window = windows.next();
+                    while (window.hasRemaining()) {
+                        int readCount = Math.min(window.remaining(), chunk.length);
+                        window.get(chunk, 0, readCount);
+                        scan(position, readCount);
+                        position += readCount;
+                    }
+                }
+                if (wordStart >= 0) endWord(size);
+            }
+            return table;
+        }
+
+        private void scan(long position, int length) throws IOException {
+            for (int i = 0; i < length; i++) {
+                byte value = chunk[i];
+                if (WordTokenizer.isWhitespace(value)) {
+                    if (wordStart >= 0) endWord(position + i);
+                    continue;
+                }
+                if (wordStart < 0) {
+                    wordStart = position + i;
+                    wordHash = 0;
+                    wordLength = 0;
+                    keyBytesLength = 0;
+                }
+                wordHash = 31 * wordHash + value;
+                if (wordLength < chunk.length) {
+                    if (wordLength == wordBytes.length) wordBytes = Arrays.copyOf(wordBytes, Math.min(chunk.length, wordLength * 2));
+                    wordBytes[wordLength++] = value;
+                }
+                if (keyBytesLength < keyBytes.length) keyBytes[keyBytesLength++] = value;
+            }
+        }
+
+        private void endWord(long end) throws IOException {
+            long length = end - wordStart;
+            if (length > Integer.MAX_VALUE) throw new IOException("Word at " + wordStart + " is too long");
+            int keyLength = decodeKey();
+            Letter letter = table.get(keyChars, 0, keyLength);
+            if (letter == null) {
+                letter = new Letter();
+                table.put(keyChars, 0, keyLength, letter);
+            }
+            letter.add(wordStart, (int) length, wordHash, length <= chunk.length ? wordBytes : null);
+            wordStart = -1;
+        }
+
+        /**
+         * Decodes the start of the word, which contains the key, and returns the number of decoded chars.
+         */
+        private int decodeKey() {
+            if (singleByteChars != null) {
+                for (int i = 0; i < keyBytesLength; i++) keyChars[i] = singleByteChars[keyBytes[i] & 0xFF];
+                return keyBytesLength;
+            }
+            int ascii = 0;
+            while (ascii < keyBytesLength && keyBytes[ascii] >= 0) {
+                keyChars[ascii] = (char) keyBytes[ascii];
+                ascii++;
+            }
+            // ASCII chars before the first non ASCII one are enough for the key
+            if (ascii == keyBytesLength || ascii >= groupingKey.codePoints()) return ascii;
+            keyBytesView.clear().limit(keyBytesLength);
+            keyCharsView.clear();
+            decoder.reset();
+            decoder.decode(keyBytesView, keyCharsView, true);
+            decoder.flush(keyCharsView);
+            return keyCharsView.position();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.string.utils.converter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.NoSuchElementException;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+/**
+ * Maps a region of a file in sliding read only windows, so files bigger than {@link Integer#MAX_VALUE} bytes can be processed.
+ * Previous window is unmapped as soon as the next one is requested, so address space and page cache used by the
+ * process stay bounded by the window size instead of the file size.
+ */
+@Slf4j
+class MappedWindows implements Closeable {
+
+    /**
+     * JDK has no public API to unmap a buffer, it is released only when the buffer is garbage collected.
+     * So the cleaner is invoked reflectively: via Unsafe.invokeCleaner() on java 9+ and via DirectBuffer.cleaner() on java 8.
+     * If none of them is accessible, unmapping is left to garbage collector.
+     */
+    private static final Unmapper UNMAPPER = Unmapper.create();
+
+    private final FileChannel channel;
+    private final long end;
+    private final int windowSize;
+    private long position;
+    private MappedByteBuffer current;
+
+    MappedWindows(FileChannel channel, long start, long end, int windowSize) {
+        this.channel = channel;
+        this.position = start;
+        this.end = end;
+        this.windowSize = windowSize;
+    }
+
+    boolean hasNext() {
+        return position < end;
+    }
+
+    /**
+     * Unmaps the previous window and maps the next one.
+     */
+    MappedByteBuffer next() throws IOException {
+        if (!hasNext()) throw new NoSuchElementException();
+        unmapCurrent();
+        long size = Math.min(windowSize, end - position);
+        current = channel.map(READ_ONLY, position, size);
+        position += size;
+        return current;
+    }
+
+    @Override
+    public void close() {
+        unmapCurrent();
+    }
+
+    private void unmapCurrent() {
+        if (current != null) {
+            unmap(current);
+            current = null;
+        }
+    }
+
+    /**
+     * Releases the mapping immediately. Buffer must not be accessed after this call.
+     */
+    static void unmap(MappedByteBuffer buffer) {
+        UNMAPPER.unmap(buffer);
+    }
+
+    /**
+     * Releases memory of the direct buffer immediately, the same way as mapping is released.
+     * Buffer must not be accessed after this call. Heap buffers are ignored.
+     */
+    static void free(ByteBuffer buffer) {
+        if (buffer != null && buffer.isDirect()) UNMAPPER.unmap(buffer);
+    }
+
+    private interface Unmapper {
+
+        void unmap(ByteBuffer buffer);
+
+        static Unmapper create() {
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                Object unsafe = theUnsafe.get(null);
+                return buffer -> invoke(invokeCleaner, unsafe, buffer);
+            } catch (ReflectiveOperationException | RuntimeException java9Missing) {
+                try {
+                    Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                    Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+                    return buffer -> {
+                        Object bufferCleaner = invoke(cleaner, buffer);
+                        if (bufferCleaner != null) invoke(clean, bufferCleaner);
+                    };
+                } catch (ReflectiveOperationException | RuntimeException java8Missing) {
+                    LOGGER.warn("Mapped buffers can not be unmapped explicitly, they are released by garbage collector");
+                    return buffer -> {};
+                }
+            }
+        }
+
+        static Object invoke(Method method, Object target, Object... args) {
+            try {
+                return method.invoke(target, args);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOGGER.debug(e.getMessage());
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * Conversion of {@link StringToMapConverter#fromFileAsync(String, Executor, int)}.
+ * The file is read by chunks through {@link AsynchronousFileChannel}, up to depth chunks are read ahead in file order.
+ * Chunks are grouped on the passed executor one after another, the grouped buffer is reused for the next read at once,
+ * so disk latency overlaps with grouping and memory is bounded by depth chunks.
+ * Grouping never waits for a read on a thread: it is continued by the completion of the read,
+ * and chunks which are already read are grouped in a loop, so the stack does not grow with the file.
+ */
+final class ReadAheadConversion {
+
+    private final Path file;
+    private final WordsAccumulator accumulator;
+    private final int chunkSize;
+    private final int depth;
+    private final Executor executor;
+    private final Function<WordCollector, Map<String, Set<String>>> finisher;
+    private final CompletableFuture<Map<String, Set<String>>> result = new CompletableFuture<>();
+    /**
+     * Pending reads in file order. Like the accumulator, it is used by one grouping step at a time,
+     * steps are ordered by completions of the reads.
+     */
+    private final ArrayDeque<CompletableFuture<ByteBuffer>> reads = new ArrayDeque<>();
+    private AsynchronousFileChannel channel;
+    private long size;
+    private long nextPosition;
+
+    ReadAheadConversion(Path file, WordsAccumulator accumulator, int chunkSize, int depth, Executor executor,
+                        Function<WordCollector, Map<String, Set<String>>> finisher) {
+        this.file = file;
+        this.accumulator = accumulator;
+        this.chunkSize = chunkSize;
+        this.depth = depth;
+        this.executor = executor;
+        this.finisher = finisher;
+    }
+
+    /**
+     * Opens the file, starts reads and schedules grouping. Cancellation of the returned future stops reads and grouping.
+     */
+    CompletableFuture<Map<String, Set<String>>> start() {
+        try {
+            channel = AsynchronousFileChannel.open(file, READ);
+            size = channel.size();
+            for (int i = 0; i < depth && nextPosition < size; i++) read(ByteBuffer.allocate(chunkSize));
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+            return result;
+        }
+        schedule();
+        return result;
+    }
+
+    /**
+     * Reads the next chunk into the buffer. Short reads are continued, so the buffer is complete when its future is.
+     */
+    private void read(ByteBuffer buffer) {
+        long position = nextPosition;
+        int length = (int) Math.min(chunkSize, size - position);
+        nextPosition += length;
+        buffer.clear();
+        buffer.limit(length);
+        CompletableFuture<ByteBuffer> read = new CompletableFuture<>();
+        reads.add(read);
+        channel.read(buffer, position, position, new CompletionHandler<Integer, Long>() {
+            @Override
+            public void completed(Integer count, Long start) {
+                // file is truncated, the rest of the chunk is never read
+                if (count == -1 || !buffer.hasRemaining()) {
+                    buffer.flip();
+                    read.complete(buffer);
+                    return;
+                }
+                channel.read(buffer, start + buffer.position(), start, this);
+            }
+
+            @Override
+            public void failed(Throwable e, Long start) {
+                read.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void schedule() {
+        try {
+            executor.execute(this::group);
+        } catch (RejectedExecutionException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Groups chunks, which are already read, and waits for the next one by its completion.
+     */
+    private void group() {
+        try {
+            CompletableFuture<ByteBuffer> read;
+            while ((read = reads.peek()) != null && read.isDone()) {
+                if (result.isDone()) {
+                    close();
+                    return;
+                }
+                reads.poll();
+                ByteBuffer buffer = read.join();
+                accumulator.feed(buffer);
+                if (nextPosition < size) read(buffer);
+            }
+            if (read == null) {
+                close();
+                result.complete(finisher.apply(accumulator.finishCollecting()));
+                return;
+            }
+            read.whenComplete((buffer, e) -> schedule());
+        } catch (CompletionException e) {
+            fail(e.getCause());
+        } catch (IOException | RuntimeException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(Throwable e) {
+        try {
+            close();
+        } catch (IOException closeError) {
+            e.addSuppressed(closeError);
+        }
+        result.completeExceptionally(e);
+    }
+
+    /**
+     * Pending reads fail when the channel is closed, nobody waits for them.
+     */
+    private void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+}
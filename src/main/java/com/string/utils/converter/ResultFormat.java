@@ -0,0 +1,89 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+
+/**
+ * Text format of the result, which is written by {@link ResultWriter}.
+ */
+public enum ResultFormat {
+
+    /**
+     * The same text as {@link java.util.AbstractMap#toString()} of the map: {а=[арбуз, ананас], б=[банан, бак]}.
+     */
+    MAP {
+        @Override
+        void start(ResultWriter out) throws IOException {
+            out.append("{");
+        }
+
+        @Override
+        void letter(ResultWriter out, String letter, boolean first) throws IOException {
+            if (!first) out.append(", ");
+            out.append(letter);
+            out.append("=[");
+        }
+
+        @Override
+        void word(ResultWriter out, String letter, String word, boolean first) throws IOException {
+            if (!first) out.append(", ");
+            out.append(word);
+        }
+
+        @Override
+        void letterEnd(ResultWriter out) throws IOException {
+            out.append("]");
+        }
+
+        @Override
+        void end(ResultWriter out) throws IOException {
+            out.append("}");
+        }
+    },
+    /**
+     * Line of every letter, its words are separated by spaces: "а: арбуз ананас".
+     */
+    LETTER_LINES {
+        @Override
+        void letter(ResultWriter out, String letter, boolean first) throws IOException {
+            out.append(letter);
+            out.append(":");
+        }
+
+        @Override
+        void word(ResultWriter out, String letter, String word, boolean first) throws IOException {
+            out.append(" ");
+            out.append(word);
+        }
+
+        @Override
+        void letterEnd(ResultWriter out) throws IOException {
+            out.append("\n");
+        }
+    },
+    /**
+     * Line of every word, which is preceded by its letter and a tab: "а\tарбуз".
+     */
+    WORD_LINES {
+        @Override
+        void word(ResultWriter out, String letter, String word, boolean first) throws IOException {
+            out.append(letter);
+            out.append("\t");
+            out.append(word);
+            out.append("\n");
+        }
+    };
+
+    void start(ResultWriter out) throws IOException {
+    }
+
+    void letter(ResultWriter out, String letter, boolean first) throws IOException {
+    }
+
+    abstract void word(ResultWriter out, String letter, String word, boolean first) throws IOException;
+
+    void letterEnd(ResultWriter out) throws IOException {
+    }
+
+    void end(ResultWriter out) throws IOException {
+    }
+}
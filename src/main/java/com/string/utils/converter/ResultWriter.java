@@ -0,0 +1,137 @@
+package com.string.utils.converter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the result as text in the passed format without building the whole text in heap.
+ * Characters are encoded directly into a single reused direct buffer, which is written into the channel when it is full.
+ * Words are passed letter by letter in the resulting order, e.g. directly from {@link StringToMapConverter#fromFileSpilling(String, long, SortedWordsConsumer)},
+ * so nothing but the current letter is kept by the writer.
+ *
+ * Channel is not closed by the writer, {@link #close()} only finishes the text and writes the rest of the buffer.
+ */
+public class ResultWriter implements SortedWordsConsumer, Closeable {
+
+    private final WritableByteChannel channel;
+    private final ResultFormat format;
+    private final CharsetEncoder encoder;
+    private ByteBuffer buffer;
+    /**
+     * High surrogate at the end of the last characters, which waits for the next ones, e.g. a key of the first char.
+     */
+    private String pending;
+    private String letter;
+    private boolean firstLetter = true;
+    private boolean firstWord;
+    private boolean closed;
+
+    /**
+     * Writes UTF-8 text with the buffer of {@link StringToMapConverter#DEFAULT_BUFFER_SIZE}.
+     */
+    public ResultWriter(WritableByteChannel channel, ResultFormat format) throws IOException {
+        this(channel, format, StringToMapConverter.DEFAULT_CHARSET_NAME, StringToMapConverter.DEFAULT_BUFFER_SIZE);
+    }
+
+    public ResultWriter(WritableByteChannel channel, ResultFormat format, String charsetName, int bufferSize) throws IOException {
+        if (channel == null) throw new IllegalArgumentException("Illegal result channel");
+        if (format == null) throw new IllegalArgumentException("Illegal result format");
+        if (!Charset.isSupported(charsetName)) throw new IllegalArgumentException("Illegal charset name");
+        this.encoder = Charset.forName(charsetName).newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        // the buffer must take at least a single character
+        if (bufferSize < Math.ceil(encoder.maxBytesPerChar()) * 2) throw new IllegalArgumentException("Illegal buffer size");
+        this.channel = channel;
+        this.format = format;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        format.start(this);
+    }
+
+    /**
+     * Writes the whole map, which is ordered as the result of {@link StringToMapConverter}. The map is not changed.
+     */
+    public void write(Map<String, ? extends Set<String>> result) throws IOException {
+        if (result == null) throw new IllegalArgumentException("Illegal result");
+        for (Map.Entry<String, ? extends Set<String>> byFirstLetter : result.entrySet()) {
+            for (String word : byFirstLetter.getValue()) accept(byFirstLetter.getKey(), word);
+        }
+    }
+
+    /**
+     * The same as {@link #write(Map)}, but every letter is removed from the map as soon as its words are written,
+     * so the sets, which are held only by the map, can be collected while the rest is written.
+     */
+    void drain(Map<String, Set<String>> result) throws IOException {
+        Iterator<Map.Entry<String, Set<String>>> letters = result.entrySet().iterator();
+        while (letters.hasNext()) {
+            Map.Entry<String, Set<String>> byFirstLetter = letters.next();
+            for (String word : byFirstLetter.getValue()) accept(byFirstLetter.getKey(), word);
+            letters.remove();
+        }
+    }
+
+    /**
+     * Letters must come in ascending order, words of a letter - in the order of the resulting set.
+     */
+    @Override
+    public void accept(String firstLetter, String word) throws IOException {
+        if (closed) throw new IllegalStateException("Result writer is closed");
+        if (!firstLetter.equals(letter)) {
+            if (letter != null && letter.compareTo(firstLetter) > 0) throw new IllegalStateException("Letters are not ordered: " + letter + " " + firstLetter);
+            if (letter != null) format.letterEnd(this);
+            format.letter(this, firstLetter, this.firstLetter);
+            letter = firstLetter;
+            this.firstLetter = false;
+            firstWord = true;
+        }
+        format.word(this, letter, word, firstWord);
+        firstWord = false;
+    }
+
+    /**
+     * Finishes the last letter and the text, writes the rest of the buffer. Channel is not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            if (letter != null) format.letterEnd(this);
+            format.end(this);
+            // stateful encoders write their final bytes only at the end of input
+            CharBuffer rest = CharBuffer.wrap(pending != null ? pending : "");
+            while (encoder.encode(rest, buffer, true).isOverflow()) flush();
+            while (encoder.flush(buffer).isOverflow()) flush();
+            flush();
+        } finally {
+            MappedWindows.free(buffer);
+            buffer = null;
+        }
+    }
+
+    /**
+     * Encodes the characters as a part of the single encoding operation, so encoders with a byte order mark write it only once.
+     */
+    void append(CharSequence chars) throws IOException {
+        CharBuffer input = CharBuffer.wrap(pending != null ? pending + chars : chars);
+        while (encoder.encode(input, buffer, false).isOverflow()) flush();
+        // unpaired surrogate is replaced as soon as the next character is not its pair
+        pending = input.hasRemaining() ? input.toString() : null;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
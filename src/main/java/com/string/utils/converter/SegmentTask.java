@@ -0,0 +1,95 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+/**
+ * Fork-join task, which groups words of a file region.
+ * Region is halved until it is not bigger than segment size. Every cut is moved forward to the next whitespace byte,
+ * so no word is torn between two segments. Every segment is mapped separately and unmapped right after grouping,
+ * so file size is not limited by 2Gb. Collectors of both halves are merged into a single one.
+ * IOException is rethrown as {@link UncheckedIOException}, because fork-join tasks can not throw checked exceptions.
+ */
+class SegmentTask extends RecursiveTask<WordCollector> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of bytes read at once while looking for the cut position.
+     */
+    private static final int PROBE_SIZE = 4096;
+
+    private final FileChannel channel;
+    private final long start;
+    private final long end;
+    private final int segmentSize;
+    private final Charset charset;
+    private final int bufferSize;
+    private final Supplier<WordCollector> collectors;
+
+    SegmentTask(FileChannel channel, long start, long end, int segmentSize, Charset charset, int bufferSize, Supplier<WordCollector> collectors) {
+        this.channel = channel;
+        this.start = start;
+        this.end = end;
+        this.segmentSize = segmentSize;
+        this.charset = charset;
+        this.bufferSize = bufferSize;
+        this.collectors = collectors;
+    }
+
+    @Override
+    protected WordCollector compute() {
+        if (end - start <= segmentSize) return group();
+        long cut = nextWhitespace(start + (end - start) / 2);
+        // single huge word till the end of region - nothing to cut
+        if (cut >= end) return group();
+        SegmentTask left = new SegmentTask(channel, start, cut, segmentSize, charset, bufferSize, collectors);
+        SegmentTask right = new SegmentTask(channel, cut, end, segmentSize, charset, bufferSize, collectors);
+        left.fork();
+        WordCollector rightResult = right.compute();
+        WordCollector leftResult = left.join();
+        leftResult.merge(rightResult);
+        return leftResult;
+    }
+
+    private long nextWhitespace(long position) {
+        // positional reads do not change channel position, so tasks do not interfere with each other
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        try {
+            while (position < end) {
+                probe.clear();
+                int readCount = channel.read(probe, position);
+                if (readCount <= 0) return end;
+                for (int i = 0; i < readCount && position < end; i++, position++) {
+                    if (WordTokenizer.isWhitespace(probe.get(i))) return position;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return end;
+    }
+
+    private WordCollector group() {
+        WordCollector result = collectors.get();
+        if (start >= end) return result;
+        WordTokenizer tokenizer = new WordTokenizer(charset, bufferSize, result);
+        try {
+            MappedByteBuffer region = channel.map(READ_ONLY, start, end - start);
+            tokenizer.feed(region);
+            tokenizer.finish();
+            MappedWindows.unmap(region);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,171 @@
+package com.string.utils.converter;
+
+import java.util.*;
+
+import static com.string.utils.converter.StringToMapConverter.WORDS_COMPARATOR;
+
+/**
+ * Collector of approximate statistics, which keeps no words except the top ones, so its memory does not depend on the input.
+ * Every key has HyperLogLog sketch of distinct words and candidates of the most frequent words.
+ * Frequencies of all words are counted by the single Count-Min sketch, word is a candidate while its estimate is among the top ones of its key.
+ * Word is hashed by its chars once for both sketches, no string is created unless the word becomes a candidate.
+ * It keeps no sets of words, so it is not a {@link WordCollector}, its result is {@link #statistics()}.
+ */
+class SketchCollector implements WordConsumer {
+
+    private final SketchOptions options;
+    private final KeyTable<LetterSketch> letters;
+    private final CountMinSketch frequencies;
+    private long words;
+
+    SketchCollector(SketchOptions options, GroupingKey groupingKey) {
+        this.options = options;
+        this.letters = groupingKey.newTable();
+        this.frequencies = new CountMinSketch(options.width(), options.depth());
+    }
+
+    @Override
+    public void accept(char[] chars, int offset, int length) {
+        long hash = hash(chars, offset, length);
+        LetterSketch letter = letters.get(chars, offset, length);
+        if (letter == null) {
+            letter = new LetterSketch(options);
+            letters.put(chars, offset, length, letter);
+        }
+        words++;
+        letter.words++;
+        letter.distinct.add(hash);
+        letter.topWords.offer(chars, offset, length, hash, frequencies.add(hash));
+    }
+
+    WordStatistics statistics() {
+        SortedMap<String, WordStatistics.Letter> result = new TreeMap<>();
+        long[] sketchBytes = {frequencies.sizeInBytes()};
+        letters.forEach((key, letter) -> {
+            sketchBytes[0] += letter.distinct.sizeInBytes();
+            result.put(key, new WordStatistics.Letter(letter.words, letter.distinctWords(), letter.topWords.sorted(frequencies)));
+        });
+        return new WordStatistics(words, result, options, sketchBytes[0]);
+    }
+
+    /**
+     * FNV-1a hash of the chars with the finalizer of MurmurHash3, so all 64 bits are mixed for both sketches.
+     */
+    static long hash(char[] chars, int offset, int length) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = offset; i < offset + length; i++) {
+            hash ^= chars[i];
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    static long hash(String word) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            hash ^= word.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class LetterSketch {
+
+        private final HyperLogLog distinct;
+        private final TopWords topWords;
+        private long words;
+
+        LetterSketch(SketchOptions options) {
+            this.distinct = new HyperLogLog(options.precision());
+            this.topWords = new TopWords(options.getTopWords());
+        }
+
+        /**
+         * Estimate can not exceed the number of words.
+         */
+        long distinctWords() {
+            return Math.min(words, distinct.estimate());
+        }
+    }
+
+    /**
+     * Candidates of the most frequent words with their last estimates. Candidate with the lowest estimate is replaced
+     * by a word with a higher one, estimates of candidates are updated when they are met again.
+     */
+    private static final class TopWords {
+
+        private final String[] words;
+        private final long[] hashes;
+        private final long[] estimates;
+        private int size;
+
+        TopWords(int capacity) {
+            this.words = new String[capacity];
+            this.hashes = new long[capacity];
+            this.estimates = new long[capacity];
+        }
+
+        void offer(char[] chars, int offset, int length, long hash, long estimate) {
+            if (words.length == 0) return;
+            for (int i = 0; i < size; i++) {
+                if (hashes[i] == hash && equal(words[i], chars, offset, length)) {
+                    estimates[i] = estimate;
+                    return;
+                }
+            }
+            if (size < words.length) {
+                set(size++, new String(chars, offset, length), hash, estimate);
+                return;
+            }
+            int lowest = lowest();
+            if (estimate > estimates[lowest]) set(lowest, new String(chars, offset, length), hash, estimate);
+        }
+
+        /**
+         * Candidates by their final estimates in descending order, equal ones in the order of the task.
+         */
+        Map<String, Long> sorted(CountMinSketch frequencies) {
+            Integer[] order = new Integer[size];
+            long[] estimated = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+                estimated[i] = frequencies.estimate(hashes[i]);
+            }
+            Arrays.sort(order, (i1, i2) -> estimated[i1] != estimated[i2] ? Long.compare(estimated[i2], estimated[i1]) : WORDS_COMPARATOR.compare(words[i1], words[i2]));
+            Map<String, Long> sorted = new LinkedHashMap<>();
+            for (int i : order) sorted.put(words[i], estimated[i]);
+            return sorted;
+        }
+
+        private int lowest() {
+            int lowest = 0;
+            for (int i = 1; i < size; i++) {
+                if (estimates[i] < estimates[lowest]) lowest = i;
+            }
+            return lowest;
+        }
+
+        private void set(int index, String word, long hash, long estimate) {
+            words[index] = word;
+            hashes[index] = hash;
+            estimates[index] = estimate;
+        }
+
+        private static boolean equal(String word, char[] chars, int offset, int length) {
+            if (word.length() != length) return false;
+            for (int i = 0; i < length; i++) {
+                if (word.charAt(i) != chars[offset + i]) return false;
+            }
+            return true;
+        }
+    }
+}
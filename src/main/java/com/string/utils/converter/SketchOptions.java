@@ -0,0 +1,91 @@
+package com.string.utils.converter;
+
+/**
+ * Error bounds of {@link StringToMapConverter#fromFileApproximate(String, SketchOptions)}, which define the fixed size of sketches.
+ */
+public final class SketchOptions {
+
+    public static final double DEFAULT_DISTINCT_ERROR = 0.01;
+    public static final double DEFAULT_FREQUENCY_ERROR = 0.0001;
+    public static final double DEFAULT_CONFIDENCE = 0.99;
+    public static final int DEFAULT_TOP_WORDS = 10;
+    /**
+     * HyperLogLog precision is limited by 2^18 registers, i.e. 256Kb per letter.
+     */
+    private static final int MAX_PRECISION = 18;
+    private static final int MIN_PRECISION = 4;
+
+    private final double distinctError;
+    private final double frequencyError;
+    private final double confidence;
+    private final int topWords;
+
+    /**
+     * If instance of the class is created with this constructor, default bounds are used.
+     */
+    public SketchOptions() {
+        this(DEFAULT_DISTINCT_ERROR, DEFAULT_FREQUENCY_ERROR, DEFAULT_CONFIDENCE, DEFAULT_TOP_WORDS);
+    }
+
+    /**
+     * @param distinctError relative standard error of the number of distinct words of a letter, not less than 0.002.
+     * @param frequencyError overestimation of a word frequency as a part of all words, e.g. 0.0001 of 10^9 words is 10^5.
+     * @param confidence probability that a frequency is within its error.
+     * @param topWords number of the most frequent words kept for every letter.
+     */
+    public SketchOptions(double distinctError, double frequencyError, double confidence, int topWords) {
+        if (!(distinctError >= 1.04 / Math.sqrt(1 << MAX_PRECISION) && distinctError < 1)) throw new IllegalArgumentException("Illegal distinct error");
+        if (!(frequencyError > 0 && frequencyError < 1)) throw new IllegalArgumentException("Illegal frequency error");
+        if (!(confidence > 0 && confidence < 1)) throw new IllegalArgumentException("Illegal confidence");
+        if (topWords < 0) throw new IllegalArgumentException("Illegal top size");
+        this.distinctError = distinctError;
+        this.frequencyError = frequencyError;
+        this.confidence = confidence;
+        this.topWords = topWords;
+        if ((long) width() * depth() > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Illegal frequency error");
+    }
+
+    public double getDistinctError() {
+        return distinctError;
+    }
+
+    public double getFrequencyError() {
+        return frequencyError;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
+
+    public int getTopWords() {
+        return topWords;
+    }
+
+    /**
+     * Number of index bits of HyperLogLog, its error is 1.04 / sqrt(2^precision).
+     */
+    int precision() {
+        double registers = Math.pow(1.04 / distinctError, 2);
+        int precision = 64 - Long.numberOfLeadingZeros((long) Math.ceil(registers) - 1);
+        return Math.max(MIN_PRECISION, Math.min(MAX_PRECISION, precision));
+    }
+
+    /**
+     * Counters in a row of Count-Min sketch, e / error.
+     */
+    int width() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.ceil(Math.E / frequencyError));
+    }
+
+    /**
+     * Rows of Count-Min sketch, ln(1 / (1 - confidence)).
+     */
+    int depth() {
+        return Math.max(1, (int) Math.ceil(Math.log(1 / (1 - confidence))));
+    }
+
+    @Override
+    public String toString() {
+        return "distinctError=" + distinctError + ", frequencyError=" + frequencyError + ", confidence=" + confidence + ", topWords=" + topWords;
+    }
+}
@@ -0,0 +1,14 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+
+/**
+ * Receives the result word by word instead of the whole map.
+ * Words come grouped by the first letter in the order of letters, inside a letter they are ordered by {@link StringToMapConverter#WORDS_COMPARATOR}.
+ * Only letters which have more than one word are passed.
+ */
+@FunctionalInterface
+public interface SortedWordsConsumer {
+
+    void accept(String firstLetter, String word) throws IOException;
+}
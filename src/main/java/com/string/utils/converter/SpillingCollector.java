@@ -0,0 +1,283 @@
+package com.string.utils.converter;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static com.string.utils.converter.StringToMapConverter.WORDS_COMPARATOR;
+
+/**
+ * External memory collector. Words are deduplicated in memory by {@link HashSortCollector},
+ * when their estimated size exceeds the memory budget they are sorted and written into a run file, and memory is emptied.
+ * At the end run files and the words left in memory are merged like sorted lists, duplicates are adjacent there and are skipped.
+ * So heap is bounded by the budget while words are grouped, and the merge keeps only one word and one read buffer per run.
+ *
+ * Run file is a sequence of words ordered by the key and then by {@link StringToMapConverter#WORDS_COMPARATOR},
+ * every word is written as int length and chars. Run files are deleted by {@link #close()}.
+ */
+class SpillingCollector implements WordCollector, Closeable {
+
+    private static final int RUN_BUFFER_SIZE = 64 * 1024;
+    /**
+     * Maximum number of runs which are read at once, it bounds open files and read buffers of the merge.
+     */
+    private static final int MAX_MERGE_WIDTH = 64;
+    private final long memoryBudget;
+    private final Path spillDirectory;
+    private final GroupingKey groupingKey;
+    /**
+     * Order of the run files: by the key, then as inside the resulting sets.
+     */
+    private final Comparator<String> runComparator;
+    private final List<Path> runs = new ArrayList<>();
+    private HashSortCollector inMemory;
+
+    SpillingCollector(long memoryBudget, Path spillDirectory, GroupingKey groupingKey) {
+        this.memoryBudget = memoryBudget;
+        this.spillDirectory = spillDirectory;
+        this.groupingKey = groupingKey;
+        this.runComparator = (o1, o2) -> {
+            int comparison = groupingKey.compare(o1, o2);
+            return comparison == 0 ? WORDS_COMPARATOR.compare(o1, o2) : comparison;
+        };
+        this.inMemory = new HashSortCollector(groupingKey);
+    }
+
+    @Override
+    public void accept(char[] chars, int offset, int length) {
+        inMemory.accept(chars, offset, length);
+        if (inMemory.estimatedSize() > memoryBudget) {
+            try {
+                spill();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Words of the other collector, which are left in its memory, are spilled into its run, then its runs are taken over,
+     * so the merge costs neither heap nor copying of the runs. Duplicates between collectors are skipped by the final merge.
+     */
+    @Override
+    public void merge(WordCollector other) {
+        SpillingCollector spilling = (SpillingCollector) other;
+        if (inMemory == null || spilling.inMemory == null) throw new IllegalStateException("Spilled words are already merged");
+        try {
+            if (spilling.inMemory.distinctCount() > 0) spilling.spill();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        runs.addAll(spilling.runs);
+        spilling.runs.clear();
+        spilling.inMemory = null;
+    }
+
+    /**
+     * Only words in memory are counted, spilled ones are known only after the merge.
+     */
+    @Override
+    public long distinctCount() {
+        return inMemory == null ? 0 : inMemory.distinctCount();
+    }
+
+    /**
+     * Merges runs into the map according to task requirements. The whole result is built in heap,
+     * so for results bigger than heap {@link #writeSorted(SortedWordsConsumer)} should be used.
+     */
+    @Override
+    public Map<String, Set<String>> result() {
+        Map<String, List<String>> grouped = new TreeMap<>();
+        try {
+            writeSorted((firstLetter, word) -> grouped.computeIfAbsent(firstLetter, letter -> new ArrayList<>()).add(word));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<String, Set<String>> result = new TreeMap<>();
+        for (Map.Entry<String, List<String>> byFirstLetter : grouped.entrySet()) {
+            String[] sorted = byFirstLetter.getValue().toArray(new String[0]);
+            result.put(byFirstLetter.getKey(), HashSortCollector.sortedSet(sorted));
+        }
+        return result;
+    }
+
+    /**
+     * Merges runs and passes distinct words to the consumer in the resulting order.
+     * The first word of a key is held back till the second one comes, so keys with a single word are skipped.
+     * Run files are deleted when the merge is done.
+     */
+    void writeSorted(SortedWordsConsumer consumer) throws IOException {
+        try {
+            // open files are bounded, so excess runs are merged into bigger ones first
+            while (runs.size() > MAX_MERGE_WIDTH) mergeRuns();
+            List<Cursor> cursors = new ArrayList<>();
+            cursors.add(new MemoryCursor(inMemory.drainSorted()));
+            inMemory = null;
+            // the first word of the current key and the key itself, which is created only when the key is passed
+            String[] keyFirst = new String[1];
+            String[] key = new String[1];
+            mergeDistinct(runs, cursors, word -> {
+                if (keyFirst[0] == null || groupingKey.compare(keyFirst[0], word) != 0) {
+                    keyFirst[0] = word;
+                    key[0] = null;
+                    return;
+                }
+                if (key[0] == null) {
+                    key[0] = groupingKey.of(keyFirst[0]);
+                    consumer.accept(key[0], keyFirst[0]);
+                }
+                consumer.accept(key[0], word);
+            });
+        } finally {
+            close();
+        }
+    }
+
+    int runsCount() {
+        return runs.size();
+    }
+
+    /**
+     * Deletes run files.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs) Files.deleteIfExists(run);
+        runs.clear();
+    }
+
+    private void spill() throws IOException {
+        writeRun(sink -> {
+            for (String[] words : inMemory.drainSorted().values()) {
+                for (String word : words) sink.accept(word);
+            }
+        });
+    }
+
+    /**
+     * Replaces the first {@link #MAX_MERGE_WIDTH} runs by a single run of their distinct words.
+     */
+    private void mergeRuns() throws IOException {
+        List<Path> merged = new ArrayList<>(runs.subList(0, MAX_MERGE_WIDTH));
+        runs.subList(0, MAX_MERGE_WIDTH).clear();
+        try {
+            writeRun(sink -> mergeDistinct(merged, new ArrayList<>(), sink));
+        } finally {
+            for (Path run : merged) Files.deleteIfExists(run);
+        }
+    }
+
+    private void writeRun(WordSource source) throws IOException {
+        Path run = Files.createTempFile(spillDirectory, "words", ".run");
+        runs.add(run);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), RUN_BUFFER_SIZE))) {
+            source.writeTo(word -> {
+                output.writeInt(word.length());
+                output.writeChars(word);
+            });
+        }
+    }
+
+    /**
+     * Merges the runs and the other sorted sources, every distinct word is passed to the sink once.
+     */
+    private void mergeDistinct(List<Path> runs, List<Cursor> cursors, WordSink sink) throws IOException {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>((o1, o2) -> runComparator.compare(o1.word, o2.word));
+        try {
+            for (Path run : runs) cursors.add(new RunCursor(run));
+            for (Cursor cursor : cursors) {
+                if (cursor.advance()) queue.add(cursor);
+            }
+            String previous = null;
+            while (!queue.isEmpty()) {
+                Cursor cursor = queue.poll();
+                String word = cursor.word;
+                if (cursor.advance()) queue.add(cursor);
+                // the same word from several runs
+                if (word.equals(previous)) continue;
+                previous = word;
+                sink.accept(word);
+            }
+        } finally {
+            for (Cursor cursor : cursors) cursor.close();
+        }
+    }
+
+    private interface WordSink {
+
+        void accept(String word) throws IOException;
+    }
+
+    private interface WordSource {
+
+        void writeTo(WordSink sink) throws IOException;
+    }
+
+    /**
+     * Current word of a sorted source.
+     */
+    private abstract static class Cursor implements Closeable {
+
+        String word;
+
+        /**
+         * Moves to the next word, returns false if there are no more words.
+         */
+        abstract boolean advance() throws IOException;
+
+        @Override
+        public void close() throws IOException {}
+    }
+
+    private static final class RunCursor extends Cursor {
+
+        private final DataInputStream input;
+        private char[] chars = new char[16];
+
+        RunCursor(Path run) throws IOException {
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), RUN_BUFFER_SIZE));
+        }
+
+        @Override
+        boolean advance() throws IOException {
+            int length;
+            try {
+                length = input.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            if (length > chars.length) chars = new char[Math.max(length, chars.length * 2)];
+            for (int i = 0; i < length; i++) chars[i] = input.readChar();
+            word = new String(chars, 0, length);
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+
+    private static final class MemoryCursor extends Cursor {
+
+        private final Iterator<String[]> letters;
+        private String[] words = new String[0];
+        private int index;
+
+        MemoryCursor(SortedMap<String, String[]> sorted) {
+            this.letters = sorted.values().iterator();
+        }
+
+        @Override
+        boolean advance() {
+            while (index == words.length) {
+                if (!letters.hasNext()) return false;
+                words = letters.next();
+                index = 0;
+            }
+            word = words[index++];
+            return true;
+        }
+    }
+}
@@ -3,15 +3,31 @@ package com.string.utils.converter;
 import com.string.utils.creator.PathChecker;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.*;
 
 /**
  * General class for task requirements implementation.
@@ -21,6 +37,36 @@ public class StringToMapConverter {
 
     public static final int DEFAULT_BUFFER_SIZE = 8192;
     public static final String DEFAULT_CHARSET_NAME = "UTF-8";
+    public static final int DEFAULT_MAPPING_WINDOW_SIZE = 64 * 1024 * 1024;
+    /**
+     * Number of chunks read ahead by {@link #fromFileAsync(String)} and {@link #fromCompressedFile(String)}:
+     * the next chunk is read while the current one is grouped.
+     */
+    public static final int DEFAULT_READ_AHEAD_DEPTH = 2;
+    /**
+     * Number of segments per pool thread in parallel mode. More segments than threads lets work stealing balance the load.
+     */
+    private static final int SEGMENTS_PER_THREAD = 4;
+    /**
+     * Upper bound of a segment size in parallel mode, as every segment is mapped at once.
+     */
+    private static final int MAX_SEGMENT_SIZE = 16 * 1024 * 1024;
+    /**
+     * Upper bound of a chunk size in asynchronous and compressed modes.
+     */
+    private static final int MAX_READ_AHEAD_CHUNK_SIZE = 1024 * 1024;
+    /**
+     * Gzip and codecs, which are installed as services, they are loaded once.
+     */
+    private static final List<CompressionCodec> INSTALLED_CODECS = installedCodecs();
+
+    /**
+     * Order of words inside the resulting sets.
+     * If words lengths are equal we delegate comparison to String class, which implementation of compareTo() meets the task requirements.
+     * Otherwise we sort descendingly by word length.
+     * Single shared instance, so sets built by different threads or methods are ordered (and can be merged) in the same way.
+     */
+    public static final Comparator<String> WORDS_COMPARATOR = (o1, o2) -> o1.length() == o2.length() ? o1.compareTo(o2) : o2.length() - o1.length();
 
     /**
      * Byte buffer size to read from file. Default value is defined by {@link #DEFAULT_BUFFER_SIZE} constant.
@@ -30,6 +76,35 @@ public class StringToMapConverter {
      * Character encoding of input one line file. Default value is  defined by {@link #DEFAULT_CHARSET_NAME} constant.
      */
     private String charsetName = DEFAULT_CHARSET_NAME;
+    /**
+     * Size of the file region which is mapped into memory at once. Default value is defined by {@link #DEFAULT_MAPPING_WINDOW_SIZE} constant.
+     * Only one window is mapped at a time, so it bounds address space and page cache used by the converter.
+     */
+    private int mappingWindowSize = DEFAULT_MAPPING_WINDOW_SIZE;
+    /**
+     * Defines how per letter sets are built and stored. Default value is {@link BuildMode#TREE_SET}.
+     */
+    private BuildMode buildMode = BuildMode.TREE_SET;
+    /**
+     * Directory of temporary run files in spilling mode. Default value is the system temporary directory.
+     */
+    private String spillDirectory = System.getProperty("java.io.tmpdir");
+    /**
+     * Number of first words kept for every letter, zero keeps all words. Default value is zero.
+     */
+    private int topK;
+    /**
+     * Receives metrics of file conversions. Default value is null, so metrics are not collected at all.
+     */
+    private ConversionListener conversionListener;
+    /**
+     * Key which words are grouped by. Default value is {@link GroupingKey#firstChar()}, as required by the task.
+     */
+    private GroupingKey groupingKey = GroupingKey.firstChar();
+    /**
+     * Codecs of compressed files, which are looked up by extension in this order. Registered codecs go first.
+     */
+    private final List<CompressionCodec> codecs = new ArrayList<>(INSTALLED_CODECS);
 
     /**
      * If instance of the class is created with this constructor, passed params override defaults.
@@ -40,11 +115,106 @@ public class StringToMapConverter {
         this.charsetName = charsetName;
     }
 
+    /**
+     * If instance of the class is created with this constructor, passed params override defaults.
+     */
+    public StringToMapConverter(int bufferSize, String charsetName, int mappingWindowSize) {
+        this(bufferSize, charsetName);
+        if (mappingWindowSize <= 1) throw new IllegalArgumentException("Illegal value of mapping window size");
+        this.mappingWindowSize = mappingWindowSize;
+    }
+
     /**
      * If instance of the class is created with this constructor, {@link #DEFAULT_BUFFER_SIZE} and {@link #DEFAULT_CHARSET_NAME} are used.
      */
     public StringToMapConverter(){};
 
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public String getCharsetName() {
+        return charsetName;
+    }
+
+    public int getMappingWindowSize() {
+        return mappingWindowSize;
+    }
+
+    public BuildMode getBuildMode() {
+        return buildMode;
+    }
+
+    /**
+     * Switches build mode of this instance, so the modes can be compared on the same input.
+     */
+    public void setBuildMode(BuildMode buildMode) {
+        if (buildMode == null) throw new IllegalArgumentException("Illegal build mode");
+        this.buildMode = buildMode;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    /**
+     * Keeps only K first words of every letter in the resulting order, i.e. K longest ones, see {@link TopKCollector}.
+     * Memory does not grow with the number of distinct words then, build mode is not used. Zero switches it off.
+     * Letters with a single distinct word are still excluded from the result.
+     */
+    public void setTopK(int topK) {
+        if (topK < 0) throw new IllegalArgumentException("Illegal top size");
+        this.topK = topK;
+    }
+
+    public ConversionListener getConversionListener() {
+        return conversionListener;
+    }
+
+    /**
+     * Enables metrics of {@link #fromFile(String)} and {@link #fromFileParallel(String)} methods, null disables them.
+     * Words are counted by a wrapper of the per letter sets, which is created only when listener is set.
+     */
+    public void setConversionListener(ConversionListener conversionListener) {
+        this.conversionListener = conversionListener;
+    }
+
+    public GroupingKey getGroupingKey() {
+        return groupingKey;
+    }
+
+    /**
+     * Switches the key which words are grouped by in file conversions, e.g. to {@link GroupingKey#firstCodePoint()}.
+     */
+    public void setGroupingKey(GroupingKey groupingKey) {
+        if (groupingKey == null) throw new IllegalArgumentException("Illegal grouping key");
+        this.groupingKey = groupingKey;
+    }
+
+    public List<CompressionCodec> getCodecs() {
+        return Collections.unmodifiableList(codecs);
+    }
+
+    /**
+     * Adds the codec of compressed files, it overrides codecs of the same extension.
+     */
+    public void registerCodec(CompressionCodec codec) {
+        if (codec == null || codec.extension() == null || codec.extension().isEmpty()) throw new IllegalArgumentException("Illegal compression codec");
+        codecs.add(0, codec);
+    }
+
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Sets directory of temporary run files in spilling mode, it should be on a local disk with enough free space.
+     */
+    public void setSpillDirectory(String spillDirectory) {
+        if (!PathChecker.isValid(spillDirectory) || !Files.isDirectory(Paths.get(spillDirectory))) throw new IllegalArgumentException("Illegal spill directory");
+        this.spillDirectory = spillDirectory;
+    }
+
     /**
      * Overloaded version of {@link #fromFile(String)}.
      * Used parameters depends on the constructor which was used to create the instance.
@@ -67,123 +237,513 @@ public class StringToMapConverter {
      * Transforms single line file into map according to task requirements.
      * It is considered that file contains only one line, in which words are separated by one space.
      * This method can be used to transform huge files into requested map, assuming that the resulting map is stored in memory.
+     * File is mapped by windows of {@link #DEFAULT_MAPPING_WINDOW_SIZE} bytes or the size passed into constructor, so its size is not limited by 2Gb.
      * So for huge files method must be invoked on jvm with corresponding heap size.
      * It is recommended that the heap size is at least equals to file size, otherwise method invocation can cause jvm errors.
+     * {@link BuildMode#COMPACT} and {@link BuildMode#COMPACT_OFF_HEAP} modes keep words as encoded bytes and need several times less memory.
      * Params passed into this method override default and constructor values.
      */
     public Map<String,Set<String>> fromFile(String filePath, int bufferSize, String charsetName) {
         validateArguments(bufferSize, charsetName);
         if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
-        // According to the task text it is not necessary to store words in a set.
-        // This impl is chosen because it is ordered, assuming that we do not want duplicates in out resulting set.
-        // Also TreeMap is used because of the same reason - it is ordered impl.
-        Map<String,Set<String>> result = new TreeMap<>();
+        Charset charset = Charset.forName(charsetName);
+        ConversionListener listener = conversionListener;
+        ConversionTracker tracker = listener == null ? null : new ConversionTracker(filePath, new File(filePath).length());
+        Supplier<WordCollector> collectors = tracker == null ? collectors(charset) : tracker.counting(collectors(charset));
+        WordsAccumulator accumulator = new WordsAccumulator(bufferSize, charset, collectors.get());
+        try {
+            feedFile(filePath, accumulator::feed, tracker);
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage());
+        }
+        if (tracker == null) return accumulator.finish();
+        return tracker.finish(accumulator.finishCollecting(), listener);
+    }
+
+    /**
+     * Creates reusable state of {@link #fromFile(String)} with the current settings of the instance, see {@link ConverterSession}.
+     * Session should be used by a single thread, it pays off when many small files are converted one after another.
+     */
+    public ConverterSession newSession() {
+        Charset charset = Charset.forName(charsetName);
+        return new ConverterSession(bufferSize, charset, mappingWindowSize, collectors(charset));
+    }
+
+    /**
+     * Overloaded version of {@link #fromFileApproximate(String, SketchOptions)} with default error bounds.
+     */
+    public WordStatistics fromFileApproximate(String filePath) {
+        return fromFileApproximate(filePath, new SketchOptions());
+    }
+
+    /**
+     * Approximate statistics of the file instead of the map: numbers of words and estimated numbers of distinct words of every letter,
+     * the most frequent words of every letter with their estimated frequencies. Words are tokenized in the same way as by {@link #fromFile(String)},
+     * but they are counted by HyperLogLog and Count-Min sketches of fixed size, which is defined by the options, see {@link SketchCollector}.
+     * So the memory does not depend on the size of the file. Build mode and top size of this instance are not used.
+     */
+    public WordStatistics fromFileApproximate(String filePath, SketchOptions options) {
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        if (options == null) throw new IllegalArgumentException("Illegal sketch options");
+        SketchCollector collector = new SketchCollector(options, groupingKey);
+        WordTokenizer tokenizer = new WordTokenizer(Charset.forName(charsetName), bufferSize, collector);
+        try {
+            feedFile(filePath, tokenizer::feed, null);
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage());
+        }
+        tokenizer.finish();
+        return collector.statistics();
+    }
+
+    /**
+     * Two pass version of {@link #fromFile(String)} for callers, which look at a few keys only. The result is equal to it.
+     * The first pass keeps only offsets of words by their keys, sets are built on the first access to their keys,
+     * see {@link LazyWordMap}. File is kept open till the map is closed. Build mode and top size are not used.
+     * Cutting by bytes is valid only for charsets which encode whitespaces as single bytes (UTF-8, single byte charsets),
+     * other charsets are not supported.
+     */
+    public LazyWordMap fromFileLazy(String filePath) throws IOException {
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        Charset charset = Charset.forName(charsetName);
+        if (!WordTokenizer.isCutByWhitespaceBytes(charset)) throw new IllegalArgumentException("Illegal charset for lazy processing");
+        FileChannel channel = FileChannel.open(Paths.get(filePath), READ);
+        try {
+            return new LazyWordMap(channel, charset, groupingKey, bufferSize, mappingWindowSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Overloaded version of {@link #fromFileAsync(String, Executor, int)}, which groups on {@link ForkJoinPool#commonPool()}
+     * with {@link #DEFAULT_READ_AHEAD_DEPTH} chunks read ahead.
+     */
+    public CompletableFuture<Map<String, Set<String>>> fromFileAsync(String filePath) {
+        return fromFileAsync(filePath, ForkJoinPool.commonPool(), DEFAULT_READ_AHEAD_DEPTH);
+    }
+
+    /**
+     * Asynchronous version of {@link #fromFile(String)}, the result is the same. The calling thread only starts the conversion.
+     * File is read by {@link java.nio.channels.AsynchronousFileChannel} in chunks of up to 1Mb, but not bigger than the mapping window,
+     * while the passed number of chunks is read ahead, the previous chunk is grouped on the passed executor.
+     * So disk latency is overlapped with grouping, and no executor thread is blocked by a read.
+     * Unlike {@link #fromFile(String)}, IOException is not logged, the future is completed with it.
+     * Cancellation of the future stops reading. Settings of this instance are taken when the method is invoked.
+     */
+    public CompletableFuture<Map<String, Set<String>>> fromFileAsync(String filePath, Executor executor, int readAheadDepth) {
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        if (executor == null) throw new IllegalArgumentException("Illegal executor");
+        if (readAheadDepth < 1) throw new IllegalArgumentException("Illegal read-ahead depth");
+        Charset charset = Charset.forName(charsetName);
+        ConversionListener listener = conversionListener;
+        ConversionTracker tracker = listener == null ? null : new ConversionTracker(filePath, new File(filePath).length());
+        Supplier<WordCollector> collectors = tracker == null ? collectors(charset) : tracker.counting(collectors(charset));
+        WordsAccumulator accumulator = new WordsAccumulator(bufferSize, charset, collectors.get());
+        return new ReadAheadConversion(Paths.get(filePath), accumulator, readAheadChunkSize(), readAheadDepth, executor,
+                collector -> tracker == null ? collector.result() : tracker.finish(collector, listener)).start();
+    }
+
+    /**
+     * External memory version of {@link #fromFile(String)} for results which do not fit into heap while they are built.
+     * Distinct words are kept in memory till their estimated size exceeds the passed budget in bytes,
+     * then they are sorted and written into a run file in the spill directory, see {@link #setSpillDirectory(String)}.
+     * Runs are merged at the end and deleted. Build mode of the instance is not used.
+     * The resulting map is still built in heap, use {@link #fromFileSpilling(String, long, SortedWordsConsumer)} to avoid it.
+     */
+    public Map<String, Set<String>> fromFileSpilling(String filePath, long memoryBudget) {
+        Map<String, Set<String>> result = new TreeMap<>();
+        try {
+            result = spill(filePath, memoryBudget).result();
+        } catch (IOException e) {
+            LOGGER.error(e.getMessage());
+        } catch (UncheckedIOException e) {
+            LOGGER.error(e.getCause().getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * The same as {@link #fromFileSpilling(String, long)}, but the merged words are streamed into the consumer instead of the map,
+     * so heap is bounded by the budget for any size of the result.
+     */
+    public void fromFileSpilling(String filePath, long memoryBudget, SortedWordsConsumer consumer) throws IOException {
+        if (consumer == null) throw new IllegalArgumentException("Illegal words consumer");
+        try {
+            spill(filePath, memoryBudget).writeSorted(consumer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes the result of {@link #fromFile(String)} as text of the passed format into the file, which is created or replaced.
+     * Text is written into a temporary file next to the output and moved over it, so a failed conversion keeps the existing file.
+     * Output must not be the input file. See {@link #writeTo(String, WritableByteChannel, ResultFormat)}.
+     */
+    public void writeTo(String filePath, Path output, ResultFormat format) throws IOException {
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        if (output == null) throw new IllegalArgumentException("Illegal output file path");
+        if (format == null) throw new IllegalArgumentException("Illegal result format");
+        Path target = output.toAbsolutePath().normalize();
+        if (Files.exists(target) ? Files.isSameFile(Paths.get(filePath), target) : Paths.get(filePath).toRealPath().equals(target)) {
+            throw new IllegalArgumentException("Illegal output file path");
+        }
+        Map<String, Set<String>> result = collectResult(filePath);
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, WRITE)) {
+                writeResult(result, channel, format);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Writes the result of {@link #fromFile(String)} as text of the passed format into the channel without building the whole text.
+     * The result map is built in heap before anything is written, so nothing is written into the channel if reading fails.
+     * Text is encoded with the charset of the instance directly into a reused buffer of buffer size,
+     * every letter is released as soon as its words are written. Channel is not closed.
+     * Unlike {@link #fromFile(String)}, read errors are thrown. Results, which do not fit in heap, are streamed
+     * by {@link #fromFileSpilling(String, long, SortedWordsConsumer)} with a {@link ResultWriter}.
+     */
+    public void writeTo(String filePath, WritableByteChannel channel, ResultFormat format) throws IOException {
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        if (channel == null) throw new IllegalArgumentException("Illegal result channel");
+        if (format == null) throw new IllegalArgumentException("Illegal result format");
+        writeResult(collectResult(filePath), channel, format);
+    }
+
+    /**
+     * Collectors do not keep their sets after the result is taken, so the returned map is their only holder.
+     * Results are mutable sorted maps, except the read-only view of compact collector, which is copied without its sets.
+     */
+    private Map<String, Set<String>> collectResult(String filePath) throws IOException {
+        Charset charset = Charset.forName(charsetName);
+        WordCollector collector = collectors(charset).get();
+        WordsAccumulator accumulator = new WordsAccumulator(bufferSize, charset, collector);
+        feedFile(filePath, accumulator::feed, null);
+        Map<String, Set<String>> result = accumulator.finishCollecting().result();
+        return collector instanceof CompactWordStore ? new TreeMap<>(result) : result;
+    }
+
+    private void writeResult(Map<String, Set<String>> result, WritableByteChannel channel, ResultFormat format) throws IOException {
+        try (ResultWriter writer = new ResultWriter(channel, format, charsetName, bufferSize)) {
+            writer.drain(result);
+        }
+    }
+
+    private SpillingCollector spill(String filePath, long memoryBudget) throws IOException {
+        if (memoryBudget <= 0) throw new IllegalArgumentException("Illegal memory budget");
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        SpillingCollector collector = new SpillingCollector(memoryBudget, Paths.get(spillDirectory), groupingKey);
+        try {
+            WordsAccumulator accumulator = new WordsAccumulator(bufferSize, Charset.forName(charsetName), collector);
+            feedFile(filePath, accumulator::feed, null);
+            accumulator.finishCollecting();
+            LOGGER.debug("{} runs are spilled", collector.runsCount());
+            return collector;
+        } catch (IOException | RuntimeException e) {
+            collector.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates collectors according to build mode or top size and grouping key of this instance.
+     */
+    private Supplier<WordCollector> collectors(Charset charset) {
+        int k = topK;
+        BuildMode mode = buildMode;
+        GroupingKey key = groupingKey;
+        return k > 0 ? () -> new TopKCollector(k, key) : () -> mode.newCollector(charset, key);
+    }
+
+    /**
+     * Passes windows of the file to the feed, e.g. to {@link WordsAccumulator#feed(ByteBuffer)}.
+     */
+    private void feedFile(String filePath, Consumer<ByteBuffer> feed, ConversionTracker tracker) throws IOException {
         // this impl is chosen to process huge files
-        try(FileInputStream stream = new FileInputStream(filePath); FileChannel channel = stream.getChannel()) {
-            MappedByteBuffer mappedFileBuffer = channel.map(READ_ONLY, 0L, channel.size());
-            byte[] buffer = new byte[bufferSize];
-            int readCount;
-            String splittedStart = "";
-            String splittedEnd = "";
-            boolean splitted = false;
-            String[] words;
-            String bufferString;
-            while(mappedFileBuffer.hasRemaining())
-            {
-                // calculate number of bytes to read
-                readCount = Math.min(mappedFileBuffer.remaining(), bufferSize);
-                // simple case for files smaller than buffer - no splitted words will appear
-                if (readCount<bufferSize) {
-                    buffer = new byte[readCount];
-                    mappedFileBuffer.get(buffer, 0,readCount);
-                    bufferString = new String(buffer, Charset.forName(charsetName));
-                    words = bufferString.split("\\s");
-                }
-                // case for files which does not fit into buffer
-                // in this case the word may "split" into buffer end and next buffer start
-                else {
-                    mappedFileBuffer.get(buffer, 0, readCount);
-                    bufferString = new String(buffer, Charset.forName(charsetName));
-                    words = bufferString.split("\\s");
-                    // assemble the splitted word and reassign it
-                    if (splitted) {
-                        splittedEnd = words[0];
-                        words[0] = splittedStart.concat(splittedEnd);
-                        splitted = false;
-                    }
-                    // memorize splitted part
-                    if (!bufferString.endsWith(" ") && mappedFileBuffer.hasRemaining()) {
-                        splittedStart = words[words.length - 1];
-                        words[words.length - 1] = null;
-                        splitted = true;
-                    }
+        try(FileInputStream stream = new FileInputStream(filePath); FileChannel channel = stream.getChannel();
+            MappedWindows windows = new MappedWindows(channel, 0L, channel.size(), mappingWindowSize)) {
+            // file is mapped by windows, so files bigger than 2Gb can be processed
+            // accumulator copies every window by chunks of buffer size and carries the split word over chunks and windows
+            while (windows.hasNext()) {
+                if (tracker == null) {
+                    feed.accept(windows.next());
+                    continue;
                 }
-                addElements(result, words);
+                long mappingStarted = System.nanoTime();
+                MappedByteBuffer window = windows.next();
+                tracker.add(ConversionPhase.MAP, System.nanoTime() - mappingStarted);
+                feed.accept(window);
             }
-            // leave only mapping which contains one or more words
-            // may be a small duplication in fromString() method, but not necessary to move to separate function
-            result.entrySet().removeIf(byFirstLetter -> byFirstLetter.getValue().size()<2);
+        }
+    }
+
+    /**
+     * Transforms single line, which is read from the channel till the end of stream, into map according to task requirements.
+     * Channel is read by chunks of buffer size, so grouping overlaps with I/O and no temporary file is needed.
+     * Channel is not closed. See {@link WordsAccumulator} to feed chunks from other sources.
+     */
+    public Map<String, Set<String>> fromChannel(ReadableByteChannel channel) throws IOException {
+        return newAccumulator().feed(channel).finish();
+    }
+
+    /**
+     * The same as {@link #fromChannel(ReadableByteChannel)}, but for input stream. Stream is not closed.
+     */
+    public Map<String, Set<String>> fromStream(InputStream stream) throws IOException {
+        return newAccumulator().feed(stream).finish();
+    }
+
+    /**
+     * Creates accumulator with buffer size, charset, build mode and top size of this instance.
+     */
+    public WordsAccumulator newAccumulator() {
+        Charset charset = Charset.forName(charsetName);
+        return new WordsAccumulator(bufferSize, charset, collectors(charset).get());
+    }
+
+    /**
+     * Overloaded version of {@link #fromCompressedFile(String, CompressionCodec)}, the codec is found by the file name extension,
+     * see {@link #getCodecs()}.
+     */
+    public Map<String, Set<String>> fromCompressedFile(String filePath) throws IOException {
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        String fileName = filePath.toLowerCase(Locale.ROOT);
+        for (CompressionCodec codec : codecs) {
+            if (fileName.endsWith(codec.extension().toLowerCase(Locale.ROOT))) return fromCompressedFile(filePath, codec);
+        }
+        throw new IllegalArgumentException("Illegal compressed file extension");
+    }
+
+    /**
+     * Transforms compressed single line file into map according to task requirements, the result is the same as for the plain file.
+     * No decompressed copy is written. File is decompressed on its own thread, while {@link #DEFAULT_READ_AHEAD_DEPTH} chunks of up to 1Mb,
+     * but not bigger than the mapping window, are passed to the calling thread through a bounded queue, so decompression overlaps with grouping.
+     * Chunks are reused, so memory does not depend on the file size.
+     */
+    public Map<String, Set<String>> fromCompressedFile(String filePath, CompressionCodec codec) throws IOException {
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        if (codec == null) throw new IllegalArgumentException("Illegal compression codec");
+        WordsAccumulator accumulator = newAccumulator();
+        try (InputStream compressed = Files.newInputStream(Paths.get(filePath)); InputStream decompressed = codec.decompress(compressed)) {
+            new DecompressionPipeline(decompressed, readAheadChunkSize(), DEFAULT_READ_AHEAD_DEPTH)
+                    .feed(accumulator, codec + " decompressor of " + filePath);
+        }
+        return accumulator.finish();
+    }
+
+    /**
+     * Chunks are big enough, so every step of grouping is long enough to hide a read.
+     */
+    private int readAheadChunkSize() {
+        return Math.max(bufferSize, Math.min(MAX_READ_AHEAD_CHUNK_SIZE, mappingWindowSize));
+    }
+
+    private static List<CompressionCodec> installedCodecs() {
+        List<CompressionCodec> codecs = new ArrayList<>();
+        for (CompressionCodec codec : ServiceLoader.load(CompressionCodec.class)) codecs.add(codec);
+        codecs.add(CompressionCodec.gzip());
+        return Collections.unmodifiableList(codecs);
+    }
+
+    /**
+     * Overloaded version of {@link #fromFileParallel(String, ForkJoinPool)}, which uses {@link ForkJoinPool#commonPool()}.
+     */
+    public Map<String, Set<String>> fromFileParallel(String filePath) {
+        return fromFileParallel(filePath, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parallel version of {@link #fromFile(String)}, the result is the same.
+     * File is split into segments, every cut is moved forward to the next whitespace byte, so no word is torn.
+     * Every segment is mapped separately and grouped on the passed pool, per letter sets are merged at the end.
+     * Cutting by bytes is valid only for charsets which encode whitespaces as single bytes (UTF-8, single byte charsets),
+     * for other charsets the file is processed sequentially.
+     */
+    public Map<String, Set<String>> fromFileParallel(String filePath, ForkJoinPool pool) {
+        if (pool == null) throw new IllegalArgumentException("Illegal fork-join pool");
+        if (!PathChecker.isValid(filePath)) throw new IllegalArgumentException("Illegal one line file path");
+        Charset charset = Charset.forName(charsetName);
+        if (!WordTokenizer.isCutByWhitespaceBytes(charset)) return fromFile(filePath);
+        Map<String, Set<String>> result = new TreeMap<>();
+        ConversionListener listener = conversionListener;
+        try(FileInputStream stream = new FileInputStream(filePath); FileChannel channel = stream.getChannel()) {
+            long size = channel.size();
+            int segmentSize = segmentSize(size, pool.getParallelism(), bufferSize);
+            ConversionTracker tracker = listener == null ? null : new ConversionTracker(filePath, size);
+            Supplier<WordCollector> collectors = tracker == null ? collectors(charset) : tracker.counting(collectors(charset));
+            WordCollector collector = pool.invoke(new SegmentTask(channel, 0L, size, segmentSize, charset, bufferSize, collectors));
+            result = tracker == null ? collector.result() : tracker.finish(collector, listener);
         } catch (IOException e) {
             LOGGER.error(e.getMessage());
+        } catch (UncheckedIOException e) {
+            LOGGER.error(e.getCause().getMessage());
         }
         return result;
     }
 
+    /**
+     * Segment size of the file in parallel mode.
+     */
+    static int segmentSize(long fileSize, int parallelism, int bufferSize) {
+        return (int) Math.max(bufferSize, Math.min(MAX_SEGMENT_SIZE, fileSize / (parallelism * SEGMENTS_PER_THREAD)));
+    }
+
+    /**
+     * Overloaded version of {@link #fromFiles(Collection, ForkJoinPool, BatchListener)}, which uses {@link ForkJoinPool#commonPool()} and no listener.
+     */
+    public BatchResult fromFiles(Collection<String> paths) {
+        return fromFiles(paths, ForkJoinPool.commonPool(), null);
+    }
+
+    /**
+     * Converts a batch of files into a single map for words of all files, see {@link BatchResult#getResult()}.
+     * Passed path is either a file or a directory, which is replaced by its regular files in the order of their names.
+     * Files are scheduled on the passed pool by {@link BatchTask}, so its parallelism defines the number of threads.
+     * Charset and collectors are set up once for the whole batch. A failed file does not stop others,
+     * its error is returned in {@link BatchResult#getErrors()} and passed to the listener, which can be null.
+     */
+    public BatchResult fromFiles(Collection<String> paths, ForkJoinPool pool, BatchListener listener) {
+        return convertBatch(paths, pool, listener, false);
+    }
+
+    /**
+     * The same as {@link #fromFiles(Collection, ForkJoinPool, BatchListener)}, but every file gets its own map,
+     * see {@link BatchResult#getResults()}.
+     */
+    public BatchResult fromEachFile(Collection<String> paths, ForkJoinPool pool, BatchListener listener) {
+        return convertBatch(paths, pool, listener, true);
+    }
+
+    private BatchResult convertBatch(Collection<String> paths, ForkJoinPool pool, BatchListener listener, boolean perFile) {
+        if (paths == null || paths.contains(null)) throw new IllegalArgumentException("Illegal file paths");
+        if (pool == null) throw new IllegalArgumentException("Illegal fork-join pool");
+        Charset charset = Charset.forName(charsetName);
+        List<String> filePaths = new ArrayList<>();
+        Map<String, IOException> unlisted = new LinkedHashMap<>();
+        for (String path : paths) {
+            Path directory = Paths.get(path);
+            if (!Files.isDirectory(directory)) {
+                filePaths.add(path);
+                continue;
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(Files::isRegularFile).map(Path::toString).sorted().forEach(filePaths::add);
+            } catch (IOException e) {
+                unlisted.put(path, e);
+            }
+        }
+        BatchTask.Batch batch = new BatchTask.Batch(filePaths, charset, bufferSize, mappingWindowSize, collectors(charset),
+                perFile, listener, filePaths.size() + unlisted.size());
+        unlisted.forEach(batch::fail);
+        WordCollector collector = filePaths.isEmpty() ? null : pool.invoke(new BatchTask(batch, 0, filePaths.size()));
+        // results and errors are returned in the order of the batch
+        Map<String, Map<String, Set<String>>> results = new LinkedHashMap<>();
+        Map<String, IOException> errors = new LinkedHashMap<>(unlisted);
+        for (String filePath : filePaths) {
+            IOException error = batch.error(filePath);
+            if (error != null) errors.put(filePath, error);
+            else if (perFile) results.put(filePath, batch.result(filePath));
+        }
+        return new BatchResult(collector == null ? new TreeMap<>() : collector.result(), results, errors);
+    }
+
     /**
      * Transforms single line into map according to task requirements.
      * This method should be used only for small strings which can be initialized by literals in code,
      * or which size is inconsiderable to heap size.
      * This method is implemented as static method as it is stateless,
      * so it can be shared by all instances or invoked without any state, e.g. w/o class instance.
+     * Line is split by {@link WordTokenizer} and grouped by {@link TreeSetCollector} in the same way as files are,
+     * so no regex or per word temporary sets are created, only the words themselves and the resulting sets.
+     */
+    public static Map<String,Set<String>> fromString(CharSequence input) {
+        return fromString(input, GroupingKey.firstChar());
+    }
+
+    /**
+     * The same as {@link #fromString(CharSequence)}, but words are grouped by the passed key.
      */
-    public static Map<String,Set<String>> fromString(String input) {
+    public static Map<String, Set<String>> fromString(CharSequence input, GroupingKey groupingKey) {
         // only dummy checks
-        if (input == null || input.isEmpty()) throw new IllegalArgumentException("Illegal string is passed");
-        Map<String, Set<String>> result = Arrays.asList(input.split("\\s")).stream()
-                // check for strings like "", "   "
-                .filter(word -> !word.isEmpty())
-                .collect(
-                        Collectors.toMap(
-                                // keyMapper
-                                (String word) -> word.substring(0, 1),
-                                // valueMapper
-                                word -> {
-                                    // small downside of the impl - needs to create new temporary single value set
-                                    Set<String> set = new TreeSet<>((o1, o2) -> {
-                                        return o1.length() == o2.length() ? o1.compareTo(o2) : o2.length() - o1.length();
-                                    });
-                                    set.add(word);
-                                    return set;
-                                },
-                                // value merger - just add temporary set into regular set
-                                (oldValue, newValue) -> {oldValue.addAll(newValue); return oldValue;},
-                                // map impl supplier - provides sorted keys
-                                TreeMap::new
-                        ));
-        result.entrySet().removeIf(byFirstLetter -> byFirstLetter.getValue().size()<2);
-        return result;
+        if (input == null || input.length() == 0) throw new IllegalArgumentException("Illegal string is passed");
+        if (groupingKey == null) throw new IllegalArgumentException("Illegal grouping key");
+        TreeSetCollector collector = new TreeSetCollector(groupingKey);
+        collectWords(collector, input);
+        return collector.result();
     }
 
-    private void addElements(Map<String,Set<String>> result, String[] words) {
-        for (String word : words) {
-            if (word != null && !word.isEmpty()) {
-                String firstLetter = word.substring(0, 1);
-                // Check is needed when the entry, corresponding to the letter is not initialized.
-                // Time complexity can be considered as constant, because it depends on the alphabet length.
-                // Alternative impl may use pre-initialized map with empty sets. In this case this codeblock is ambiguous.
-                if (!result.containsKey(firstLetter)) {
-                    // Comparator is implemented according to the task.
-                    // If words lengths are equal we delegate comparison to String class, which implementation of compareTo() meets the task requirements.
-                    // Otherwise we sort descendingly by word length.
-                    result.put(firstLetter, new TreeSet<>((o1, o2) -> o1.length() == o2.length() ? o1.compareTo(o2) : o2.length() - o1.length()));
-                }
-                // add element to set - O(log(n))
-                result.get(firstLetter).add(word);
-            }
-        }
+    /**
+     * Overloaded version of {@link #fromStrings(Collection, GroupingKey)}, which groups words by {@link GroupingKey#firstChar()}.
+     */
+    public static Map<String, Set<String>> fromStrings(Collection<? extends CharSequence> inputs) {
+        return fromStrings(inputs, GroupingKey.firstChar());
+    }
+
+    /**
+     * Batch version of {@link #fromString(CharSequence, GroupingKey)}, which returns a single map for words of all passed strings.
+     * Strings are processed in parallel on {@link ForkJoinPool#commonPool()}, partial maps are merged before pruning,
+     * so a letter is kept if it has more than one distinct word in all strings together. Empty strings are skipped.
+     */
+    public static Map<String, Set<String>> fromStrings(Collection<? extends CharSequence> inputs, GroupingKey groupingKey) {
+        validateInputs(inputs, groupingKey);
+        return inputs.parallelStream().collect(
+                () -> new TreeSetCollector(groupingKey),
+                StringToMapConverter::collectWords,
+                TreeSetCollector::merge).result();
+    }
+
+    /**
+     * Overloaded version of {@link #fromEachString(Collection, GroupingKey)}, which groups words by {@link GroupingKey#firstChar()}.
+     */
+    public static List<Map<String, Set<String>>> fromEachString(Collection<? extends CharSequence> inputs) {
+        return fromEachString(inputs, GroupingKey.firstChar());
+    }
+
+    /**
+     * Batch version of {@link #fromString(CharSequence, GroupingKey)}, which returns a map for every passed string in the same order.
+     * Strings are processed in parallel on {@link ForkJoinPool#commonPool()}, empty strings get empty maps.
+     */
+    public static List<Map<String, Set<String>>> fromEachString(Collection<? extends CharSequence> inputs, GroupingKey groupingKey) {
+        validateInputs(inputs, groupingKey);
+        return inputs.parallelStream()
+                .map(input -> {
+                    TreeSetCollector collector = new TreeSetCollector(groupingKey);
+                    collectWords(collector, input);
+                    return collector.result();
+                })
+                .collect(Collectors.toList());
+    }
+
+    private static void validateInputs(Collection<? extends CharSequence> inputs, GroupingKey groupingKey) {
+        if (inputs == null || inputs.contains(null)) throw new IllegalArgumentException("Illegal strings are passed");
+        if (groupingKey == null) throw new IllegalArgumentException("Illegal grouping key");
+    }
+
+    /**
+     * Adds words of the line into the collector. Every line is finished separately, so words are never joined across lines.
+     * Chunk of the tokenizer is not bigger than the line, as short lines are the usual input here.
+     */
+    private static void collectWords(WordCollector collector, CharSequence input) {
+        int chunkSize = Math.max(1, Math.min(input.length(), DEFAULT_BUFFER_SIZE));
+        new WordsAccumulator(chunkSize, Charset.forName(DEFAULT_CHARSET_NAME), collector).feed(input).finishCollecting();
+    }
+
+    /**
+     * Leaves only mapping which contains more than one word.
+     */
+    static Map<String,Set<String>> prune(Map<String,Set<String>> result) {
+        result.entrySet().removeIf(byFirstLetter -> byFirstLetter.getValue().size()<2);
+        return result;
     }
 
-    private void validateArguments(int bufferSize, String charsetName) {
+    static void validateArguments(int bufferSize, String charsetName) {
         if (bufferSize <= 1) throw new IllegalArgumentException("Illegal value of buffer size");
         if (charsetName == null || charsetName.isEmpty()) throw new IllegalArgumentException("Illegal charset name");
     }
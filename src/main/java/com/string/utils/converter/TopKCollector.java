@@ -0,0 +1,138 @@
+package com.string.utils.converter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static com.string.utils.converter.StringToMapConverter.WORDS_COMPARATOR;
+
+/**
+ * Collector, which keeps only K first words of every key in the order of {@link StringToMapConverter#WORDS_COMPARATOR},
+ * i.e. K longest ones. Memory is bounded by number of keys multiplied by K for any size of the input.
+ * Every key has a sorted array of at most K words, candidate is compared with the last word by its chars,
+ * so a word which does not make the cut is dropped without creating a string. Most words of a big input are such words.
+ *
+ * Key is kept in the result only if it has more than one distinct word in the input, as in the other modes,
+ * so the fact that some word was dropped is remembered as well.
+ */
+class TopKCollector implements WordCollector {
+
+    private final int k;
+    private final GroupingKey groupingKey;
+    /**
+     * Tops by the key of the word, they are found by the chars of the word without a key string.
+     */
+    private KeyTable<Top> tops;
+
+    TopKCollector(int k, GroupingKey groupingKey) {
+        this.k = k;
+        this.groupingKey = groupingKey;
+        this.tops = groupingKey.newTable();
+    }
+
+    @Override
+    public void accept(char[] chars, int offset, int length) {
+        Top top = tops.get(chars, offset, length);
+        if (top == null) {
+            top = new Top();
+            tops.put(chars, offset, length, top);
+        }
+        top.add(chars, offset, length);
+    }
+
+    @Override
+    public void merge(WordCollector other) {
+        ((TopKCollector) other).tops.forEach((key, otherTop) -> {
+            Top top = tops.get(key);
+            if (top == null) {
+                tops.put(key, otherTop);
+                return;
+            }
+            top.dropped |= otherTop.dropped;
+            for (int i = 0; i < otherTop.size; i++) {
+                char[] chars = otherTop.words[i].toCharArray();
+                top.add(chars, 0, chars.length);
+            }
+        });
+        ((TopKCollector) other).tops = groupingKey.newTable();
+    }
+
+    /**
+     * Only kept words are counted, dropped ones are not remembered.
+     */
+    @Override
+    public long distinctCount() {
+        long[] count = new long[1];
+        tops.forEachValue(top -> count[0] += top.size);
+        return count[0];
+    }
+
+    @Override
+    public Map<String, Set<String>> result() {
+        Map<String, Set<String>> result = new TreeMap<>();
+        tops.forEach((key, top) -> {
+            // leave only mapping which contains more than one word, dropped word is always distinct from the kept ones
+            if (top.size + (top.dropped ? 1 : 0) < 2) return;
+            String[] words = Arrays.copyOf(top.words, top.size);
+            result.put(key, HashSortCollector.sortedSet(words));
+        });
+        tops = groupingKey.newTable();
+        return result;
+    }
+
+    /**
+     * First words of a key, sorted by {@link StringToMapConverter#WORDS_COMPARATOR}.
+     */
+    private final class Top {
+
+        private String[] words = new String[Math.min(k, 16)];
+        private int size;
+        /**
+         * Some distinct word did not make the cut or was pushed out.
+         */
+        private boolean dropped;
+
+        void add(char[] chars, int offset, int length) {
+            if (size == k) {
+                int comparison = compare(words[size - 1], chars, offset, length);
+                if (comparison == 0) return;
+                if (comparison < 0) {
+                    dropped = true;
+                    return;
+                }
+            }
+            // binary search of the insertion point
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compare(words[middle], chars, offset, length);
+                if (comparison < 0) low = middle + 1;
+                else if (comparison > 0) high = middle - 1;
+                else return;
+            }
+            if (size == k) {
+                dropped = true;
+                size--;
+            } else if (size == words.length) {
+                words = Arrays.copyOf(words, Math.min(k, size * 2));
+            }
+            System.arraycopy(words, low, words, low + 1, size - low);
+            words[low] = new String(chars, offset, length);
+            size++;
+        }
+    }
+
+    /**
+     * The same as {@link StringToMapConverter#WORDS_COMPARATOR} for the word and chars of another word.
+     */
+    private static int compare(String word, char[] chars, int offset, int length) {
+        if (word.length() != length) return length - word.length();
+        for (int i = 0; i < length; i++) {
+            char c = word.charAt(i);
+            if (c != chars[offset + i]) return c - chars[offset + i];
+        }
+        return 0;
+    }
+}
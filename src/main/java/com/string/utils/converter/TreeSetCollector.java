@@ -0,0 +1,80 @@
+package com.string.utils.converter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.string.utils.converter.StringToMapConverter.WORDS_COMPARATOR;
+
+/**
+ * Default collector, which inserts every word into the ordered set of its key.
+ */
+class TreeSetCollector implements WordCollector {
+
+    // According to the task text it is not necessary to store words in a set.
+    // This impl is chosen because it is ordered, assuming that we do not want duplicates in out resulting set.
+    // Sets are found by the chars of the word, keys are sorted once when the result is built.
+    private final GroupingKey groupingKey;
+    private KeyTable<Set<String>> sets;
+
+    TreeSetCollector(GroupingKey groupingKey) {
+        this.groupingKey = groupingKey;
+        this.sets = groupingKey.newTable();
+    }
+
+    @Override
+    public void accept(char[] chars, int offset, int length) {
+        // Check is needed when the entry, corresponding to the key is not initialized.
+        // Lookup takes constant time and creates no key string.
+        Set<String> words = sets.get(chars, offset, length);
+        if (words == null) {
+            // Comparator is implemented according to the task, see WORDS_COMPARATOR.
+            words = new TreeSet<>(WORDS_COMPARATOR);
+            sets.put(chars, offset, length, words);
+        }
+        // add element to set - O(log(n))
+        words.add(new String(chars, offset, length));
+    }
+
+    /**
+     * Smaller sets are merged into the bigger ones.
+     */
+    @Override
+    public void merge(WordCollector other) {
+        ((TreeSetCollector) other).sets.forEach((key, otherWords) -> {
+            Set<String> words = sets.get(key);
+            if (words == null) {
+                sets.put(key, otherWords);
+            } else if (words.size() >= otherWords.size()) {
+                words.addAll(otherWords);
+            } else {
+                otherWords.addAll(words);
+                sets.put(key, otherWords);
+            }
+        });
+    }
+
+    @Override
+    public long distinctCount() {
+        long[] count = new long[1];
+        sets.forEachValue(words -> count[0] += words.size());
+        return count[0];
+    }
+
+    /**
+     * Collected sets before pruning, collector can still be fed after this call.
+     */
+    Map<String, Set<String>> words() {
+        return sets.sorted();
+    }
+
+    /**
+     * Sets are released by the collector, so the result is their only holder.
+     */
+    @Override
+    public Map<String, Set<String>> result() {
+        Map<String, Set<String>> result = StringToMapConverter.prune(sets.sorted());
+        sets = groupingKey.newTable();
+        return result;
+    }
+}
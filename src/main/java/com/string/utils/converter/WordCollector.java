@@ -0,0 +1,29 @@
+package com.string.utils.converter;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Groups words passed by {@link WordTokenizer} by their first letter.
+ * Implementation defines how the per letter sets are built and stored, see {@link BuildMode}.
+ * Collector is not thread-safe, parallel processing uses one collector per segment and merges them at the end.
+ */
+interface WordCollector extends WordConsumer {
+
+    /**
+     * Adds all words of the other collector, which must be created by the same build mode.
+     * Other collector can not be used after this call.
+     */
+    void merge(WordCollector other);
+
+    /**
+     * Number of distinct words currently held by the collector, including letters with a single word.
+     */
+    long distinctCount();
+
+    /**
+     * Returns the map according to task requirements, which contains only letters with more than one word.
+     * Collector can not be fed after this call.
+     */
+    Map<String, Set<String>> result();
+}
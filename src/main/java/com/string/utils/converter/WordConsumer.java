@@ -0,0 +1,11 @@
+package com.string.utils.converter;
+
+/**
+ * Receives words found by {@link WordTokenizer}.
+ * Chars array is reused by the tokenizer, so its content is valid only during the call.
+ * Implementation should create a string only for words which it keeps.
+ */
+interface WordConsumer {
+
+    void accept(char[] chars, int offset, int length);
+}
@@ -0,0 +1,250 @@
+package com.string.utils.converter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+import static com.string.utils.converter.StringToMapConverter.WORDS_COMPARATOR;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+
+/**
+ * Reads index file written by {@link WordIndexWriter}. Only the directory of letters is read on open,
+ * words of a letter are memory-mapped on the first access and decoded only when they are requested,
+ * so opening and querying of a huge result costs neither time nor heap proportional to its size.
+ *
+ * Instance is thread-safe. Lists returned by it are views of the mapped file, they throw {@link IllegalStateException} after {@link #close()}.
+ * Mapped letters are not unmapped forcibly, as views and other threads can still read them, they are released by garbage collector.
+ */
+public class WordIndexReader implements Closeable {
+
+    private final FileChannel channel;
+    private final GroupingKey groupingKey;
+    private final Map<String, Letter> letters = new TreeMap<>();
+    private volatile boolean closed;
+
+    /**
+     * Opens index of the result, which words are grouped by {@link GroupingKey#firstChar()}.
+     */
+    public WordIndexReader(Path file) throws IOException {
+        this(file, GroupingKey.firstChar());
+    }
+
+    /**
+     * Opens index of the result, which words are grouped by the passed key, so {@link #contains(String)} finds the key of the word.
+     */
+    public WordIndexReader(Path file, GroupingKey groupingKey) throws IOException {
+        if (file == null) throw new IllegalArgumentException("Illegal index file path");
+        if (groupingKey == null) throw new IllegalArgumentException("Illegal grouping key");
+        this.groupingKey = groupingKey;
+        this.channel = FileChannel.open(file);
+        try {
+            readDirectory();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Letters in the resulting order.
+     */
+    public Set<String> letters() {
+        return Collections.unmodifiableSet(letters.keySet());
+    }
+
+    /**
+     * Number of words of the letter, 0 if there is no such letter.
+     */
+    public int size(String letter) {
+        Letter entry = letters.get(letter);
+        return entry == null ? 0 : entry.count;
+    }
+
+    /**
+     * All words of the letter in the resulting order, empty list if there is no such letter.
+     * Words are decoded on every access to the list.
+     */
+    public List<String> words(String letter) {
+        Letter entry = letters.get(letter);
+        return entry == null ? Collections.emptyList() : new Words(this, entry.block());
+    }
+
+    /**
+     * First n words of the letter, i.e. n longest ones.
+     */
+    public List<String> top(String letter, int n) {
+        if (n < 0) throw new IllegalArgumentException("Illegal top size");
+        List<String> words = words(letter);
+        return words.subList(0, Math.min(n, words.size()));
+    }
+
+    /**
+     * Binary search of the word among words of its key.
+     */
+    public boolean contains(String word) {
+        if (word == null || word.isEmpty()) return false;
+        Letter entry = letters.get(groupingKey.of(word));
+        if (entry == null) return false;
+        Block block = entry.block();
+        int low = 0;
+        int high = entry.count - 1;
+        while (low <= high) {
+            checkOpen();
+            int middle = (low + high) >>> 1;
+            int comparison = WORDS_COMPARATOR.compare(block.word(middle), word);
+            if (comparison < 0) low = middle + 1;
+            else if (comparison > 0) high = middle - 1;
+            else return true;
+        }
+        return false;
+    }
+
+    /**
+     * Closes the file. Letters, which are already mapped, stay valid till they are garbage collected,
+     * so a word which is read by another thread at the moment of close is never read from unmapped memory.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        channel.close();
+    }
+
+    private void checkOpen() {
+        if (closed) throw new IllegalStateException("Index reader is closed");
+    }
+
+    private void readDirectory() throws IOException {
+        long size = channel.size();
+        if (size < 8 + WordIndexWriter.FOOTER_SIZE) throw new IOException("Illegal index file size " + size);
+        ByteBuffer header = read(0, 8);
+        if (header.getInt() != WordIndexWriter.MAGIC) throw new IOException("Illegal index file");
+        int version = header.getInt();
+        if (version != WordIndexWriter.VERSION) throw new IOException("Unsupported index version " + version);
+        ByteBuffer footer = read(size - WordIndexWriter.FOOTER_SIZE, WordIndexWriter.FOOTER_SIZE);
+        long directoryPosition = footer.getLong();
+        int lettersCount = footer.getInt();
+        if (footer.getInt() != WordIndexWriter.MAGIC) throw new IOException("Index file is not complete");
+        long directoryLength = size - WordIndexWriter.FOOTER_SIZE - directoryPosition;
+        check(directoryPosition >= 8 && directoryLength >= 0 && directoryLength <= Integer.MAX_VALUE && lettersCount >= 0);
+        ByteBuffer directory = read(directoryPosition, (int) directoryLength);
+        for (int i = 0; i < lettersCount; i++) {
+            check(directory.remaining() >= 4);
+            int letterLength = directory.getInt();
+            // letter chars are followed by two positions and a count
+            check(letterLength >= 0 && letterLength <= (directory.remaining() - 20) / 2);
+            char[] letter = new char[letterLength];
+            for (int j = 0; j < letter.length; j++) letter[j] = directory.getChar();
+            long wordsPosition = directory.getLong();
+            long offsetsPosition = directory.getLong();
+            int count = directory.getInt();
+            // words and offsets of a letter are mapped as one block before the directory
+            check(wordsPosition >= 8 && offsetsPosition >= wordsPosition && count >= 0
+                    && offsetsPosition + 4L * count + 4 <= directoryPosition
+                    && offsetsPosition + 4L * count + 4 - wordsPosition <= Integer.MAX_VALUE);
+            letters.put(new String(letter), new Letter(wordsPosition, offsetsPosition, count));
+        }
+    }
+
+    private static void check(boolean valid) throws IOException {
+        if (!valid) throw new IOException("Illegal index file");
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) == -1) throw new IOException("Unexpected end of index file");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Directory entry of a letter.
+     */
+    private final class Letter {
+
+        private final long wordsPosition;
+        private final long offsetsPosition;
+        private final int count;
+        private volatile Block block;
+
+        Letter(long wordsPosition, long offsetsPosition, int count) {
+            this.wordsPosition = wordsPosition;
+            this.offsetsPosition = offsetsPosition;
+            this.count = count;
+        }
+
+        Block block() {
+            Block mapped = block;
+            if (mapped != null) return mapped;
+            synchronized (WordIndexReader.this) {
+                checkOpen();
+                if (block == null) {
+                    try {
+                        long size = offsetsPosition + 4L * (count + 1) - wordsPosition;
+                        block = new Block(channel.map(READ_ONLY, wordsPosition, size), (int) (offsetsPosition - wordsPosition), count);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Letter is not mapped: " + e.getMessage(), e);
+                    }
+                }
+                return block;
+            }
+        }
+    }
+
+    /**
+     * Mapped words and offsets of a letter.
+     */
+    private static final class Block {
+
+        private final MappedByteBuffer buffer;
+        private final int offsets;
+        private final int count;
+
+        Block(MappedByteBuffer buffer, int offsets, int count) {
+            this.buffer = buffer;
+            this.offsets = offsets;
+            this.count = count;
+        }
+
+        String word(int index) {
+            int start = buffer.getInt(offsets + 4 * index);
+            int end = buffer.getInt(offsets + 4 * (index + 1));
+            byte[] bytes = new byte[end - start];
+            // absolute reads keep the shared buffer position untouched
+            ByteBuffer word = buffer.duplicate();
+            word.position(start);
+            word.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Words extends AbstractList<String> implements RandomAccess {
+
+        private final WordIndexReader reader;
+        private final Block block;
+
+        Words(WordIndexReader reader, Block block) {
+            this.reader = reader;
+            this.block = block;
+        }
+
+        @Override
+        public String get(int index) {
+            reader.checkOpen();
+            if (index < 0 || index >= block.count) throw new IndexOutOfBoundsException("Index: " + index);
+            return block.word(index);
+        }
+
+        @Override
+        public int size() {
+            return block.count;
+        }
+    }
+}
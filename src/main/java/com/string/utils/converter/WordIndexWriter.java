@@ -0,0 +1,177 @@
+package com.string.utils.converter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Writes the result into binary index file, which is read by {@link WordIndexReader} without loading it into heap.
+ * Words are passed letter by letter in the resulting order, e.g. directly from {@link StringToMapConverter#fromFileSpilling(String, long, SortedWordsConsumer)},
+ * so only offsets of the current letter are kept in memory.
+ *
+ * File layout, all numbers are big endian:
+ * <pre>
+ * header:    int magic, int version
+ * letter:    UTF-8 bytes of its words one after another, then int offsets of the words relative to the letter start,
+ *            the last offset is the end of the words
+ * directory: for every letter - int length and UTF-16 chars of the letter, long words position, long offsets position, int words count
+ * footer:    long directory position, int letters count, int magic
+ * </pre>
+ * Words of a single letter can not exceed 2Gb.
+ */
+public class WordIndexWriter implements SortedWordsConsumer, Closeable {
+
+    static final int MAGIC = 0x57494458;
+    /**
+     * Letters are kept as chars since version 2, as a key of the first char can be an unpaired surrogate, which UTF-8 loses.
+     */
+    static final int VERSION = 2;
+    static final int FOOTER_SIZE = 16;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int INITIAL_OFFSETS_CAPACITY = 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    /**
+     * Directory entries are small, so they are kept in heap till the end.
+     */
+    private ByteBuffer directoryBuffer = ByteBuffer.allocate(4096);
+    private int lettersCount;
+    private long position;
+    private String letter;
+    private long letterStart;
+    private int[] offsets = new int[INITIAL_OFFSETS_CAPACITY];
+    private int wordsCount;
+    private boolean closed;
+
+    /**
+     * Creates or truncates the file.
+     */
+    public WordIndexWriter(Path file) throws IOException {
+        if (file == null) throw new IllegalArgumentException("Illegal index file path");
+        this.channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        position = 8;
+    }
+
+    /**
+     * Writes the whole map, which is ordered as the result of {@link StringToMapConverter}.
+     */
+    public static void write(Map<String, Set<String>> result, Path file) throws IOException {
+        if (result == null) throw new IllegalArgumentException("Illegal result");
+        try (WordIndexWriter writer = new WordIndexWriter(file)) {
+            for (Map.Entry<String, Set<String>> byFirstLetter : result.entrySet()) {
+                for (String word : byFirstLetter.getValue()) writer.accept(byFirstLetter.getKey(), word);
+            }
+        }
+    }
+
+    /**
+     * Letters must come in ascending order, words of a letter - in the order of the resulting set.
+     */
+    @Override
+    public void accept(String firstLetter, String word) throws IOException {
+        if (closed) throw new IllegalStateException("Index writer is closed");
+        if (!firstLetter.equals(letter)) {
+            if (letter != null && letter.compareTo(firstLetter) > 0) throw new IllegalStateException("Letters are not ordered: " + letter + " " + firstLetter);
+            finishLetter();
+            letter = firstLetter;
+            letterStart = position;
+        }
+        if (wordsCount + 1 == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        offsets[wordsCount++] = relativePosition();
+        encoder.reset();
+        CharBuffer chars = CharBuffer.wrap(word);
+        while (true) {
+            int start = buffer.position();
+            boolean overflow = encoder.encode(chars, buffer, true).isOverflow() || encoder.flush(buffer).isOverflow();
+            position += buffer.position() - start;
+            if (!overflow) break;
+            flush();
+        }
+    }
+
+    /**
+     * Writes the last letter, directory and footer.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            finishLetter();
+            long directoryPosition = position;
+            directoryBuffer.flip();
+            while (directoryBuffer.hasRemaining()) {
+                ensureRemaining(1);
+                int length = Math.min(buffer.remaining(), directoryBuffer.remaining());
+                ByteBuffer part = directoryBuffer.duplicate();
+                part.limit(part.position() + length);
+                buffer.put(part);
+                directoryBuffer.position(directoryBuffer.position() + length);
+                position += length;
+            }
+            ensureRemaining(FOOTER_SIZE);
+            buffer.putLong(directoryPosition).putInt(lettersCount).putInt(MAGIC);
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void finishLetter() throws IOException {
+        if (letter == null) return;
+        offsets[wordsCount] = relativePosition();
+        long offsetsPosition = position;
+        for (int i = 0; i <= wordsCount; i++) {
+            ensureRemaining(4);
+            buffer.putInt(offsets[i]);
+            position += 4;
+        }
+        ensureDirectoryRemaining(4 + 2 * letter.length() + 20);
+        directoryBuffer.putInt(letter.length());
+        for (int i = 0; i < letter.length(); i++) directoryBuffer.putChar(letter.charAt(i));
+        directoryBuffer.putLong(letterStart).putLong(offsetsPosition).putInt(wordsCount);
+        lettersCount++;
+        wordsCount = 0;
+        letter = null;
+    }
+
+    private int relativePosition() {
+        long relative = position - letterStart;
+        if (relative > Integer.MAX_VALUE) throw new IllegalStateException("Words of letter '" + letter + "' exceed 2Gb");
+        return (int) relative;
+    }
+
+    private void ensureRemaining(int length) throws IOException {
+        if (buffer.remaining() < length) flush();
+    }
+
+    private void ensureDirectoryRemaining(int length) {
+        if (directoryBuffer.remaining() >= length) return;
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(directoryBuffer.capacity() * 2, directoryBuffer.position() + length));
+        directoryBuffer.flip();
+        grown.put(directoryBuffer);
+        directoryBuffer = grown;
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
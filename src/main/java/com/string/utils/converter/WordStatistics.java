@@ -0,0 +1,98 @@
+package com.string.utils.converter;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Approximate statistics of {@link StringToMapConverter#fromFileApproximate(String, SketchOptions)}.
+ * Numbers of all words are exact, numbers of distinct words and frequencies of top words are estimated within the error bounds of the options.
+ * Unlike the map of the task, letters with a single distinct word are not excluded.
+ */
+public final class WordStatistics {
+
+    private final long words;
+    private final SortedMap<String, Letter> letters;
+    private final SketchOptions options;
+    private final long sketchBytes;
+
+    WordStatistics(long words, SortedMap<String, Letter> letters, SketchOptions options, long sketchBytes) {
+        this.words = words;
+        this.letters = Collections.unmodifiableSortedMap(letters);
+        this.options = options;
+        this.sketchBytes = sketchBytes;
+    }
+
+    /**
+     * Number of all words including duplicates.
+     */
+    public long getWords() {
+        return words;
+    }
+
+    /**
+     * Statistics by letters in the resulting order.
+     */
+    public SortedMap<String, Letter> getLetters() {
+        return letters;
+    }
+
+    public SketchOptions getOptions() {
+        return options;
+    }
+
+    /**
+     * Memory of all sketches, it depends only on the options and the number of letters.
+     */
+    public long getSketchBytes() {
+        return sketchBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "WordStatistics{words=" + words + ", letters=" + letters + '}';
+    }
+
+    /**
+     * Statistics of a single letter.
+     */
+    public static final class Letter {
+
+        private final long words;
+        private final long distinctWords;
+        private final Map<String, Long> topWords;
+
+        Letter(long words, long distinctWords, Map<String, Long> topWords) {
+            this.words = words;
+            this.distinctWords = distinctWords;
+            this.topWords = Collections.unmodifiableMap(topWords);
+        }
+
+        /**
+         * Number of words of the letter including duplicates.
+         */
+        public long getWords() {
+            return words;
+        }
+
+        /**
+         * Estimated number of distinct words of the letter.
+         */
+        public long getDistinctWords() {
+            return distinctWords;
+        }
+
+        /**
+         * The most frequent words by their estimated frequencies in descending order.
+         * Estimate is never less than the real frequency.
+         */
+        public Map<String, Long> getTopWords() {
+            return topWords;
+        }
+
+        @Override
+        public String toString() {
+            return "{words=" + words + ", distinctWords=" + distinctWords + ", topWords=" + topWords + '}';
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.string.utils.converter;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits encoded line into words by the same whitespaces as "\\s" regex and passes them to {@link WordConsumer}.
+ * Input can be fed by chunks of any size, the word which is split between chunks is carried over to the next chunk.
+ * Tokenizer is stateful and is not thread-safe, one instance should be used for one input.
+ *
+ * For charsets, which encode whitespaces as single bytes (UTF-8, single byte charsets) whitespaces are searched in bytes directly,
+ * only the bytes of words are decoded and the split word is carried over as bytes, so multi byte characters are never corrupted.
+ * Single byte charsets are decoded with a lookup table, ASCII words in UTF-8 are copied without decoder.
+ * For other charsets input is decoded by chunks with the reused decoder, which keeps incomplete multi byte sequences till the next chunk.
+ * Tokenizer allocates nothing while processing, except growing its reused buffers for the longest word.
+ */
+class WordTokenizer {
+
+    /**
+     * Chars which are matched by "\\s" regex.
+     */
+    private static final String WHITESPACES = " \t\n\u000B\f\r";
+    private static final int MIN_WORD_CAPACITY = 64;
+    /**
+     * Decoding buffer must fit the longest multi byte sequence with some bytes of the next one.
+     */
+    private static final int MIN_DECODING_CAPACITY = 16;
+
+    private WordConsumer consumer;
+    private final CharsetDecoder decoder;
+    private final boolean byteLevel;
+    private final boolean utf8;
+    /**
+     * Decoded chars of the single byte charset, indexed by unsigned byte value. Null for multi byte charsets.
+     */
+    private final char[] singleByteChars;
+    /**
+     * Reused array to copy input bytes, if they are not accessible as array.
+     */
+    private final byte[] chunk;
+    private final ByteBuffer chunkView;
+
+    // split word bytes, carried over to the next chunk
+    private byte[] pendingBytes = new byte[MIN_WORD_CAPACITY];
+    private int pendingBytesLength;
+    private ByteBuffer pendingView = ByteBuffer.wrap(pendingBytes);
+    private byte[] inputArray;
+    private ByteBuffer inputView;
+
+    // reused word chars
+    private char[] wordChars = new char[MIN_WORD_CAPACITY];
+    private CharBuffer wordView = CharBuffer.wrap(wordChars);
+
+    // buffers of chunk decoding, used only for charsets which are not byte level
+    private ByteBuffer undecoded;
+    private CharBuffer decoded;
+    // split word chars, carried over to the next chunk of decoded chars
+    private int pendingCharsLength;
+    private char[] charsChunk;
+
+    WordTokenizer(Charset charset, int chunkSize, WordConsumer consumer) {
+        this.consumer = consumer;
+        this.decoder = charset.newDecoder()
+                // the same behaviour as new String(bytes, charset)
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.byteLevel = isCutByWhitespaceBytes(charset);
+        this.utf8 = StandardCharsets.UTF_8.equals(charset);
+        this.singleByteChars = byteLevel && !utf8 ? decodeAllBytes(charset) : null;
+        this.chunk = new byte[chunkSize];
+        this.chunkView = ByteBuffer.wrap(chunk);
+        if (!byteLevel) {
+            int capacity = Math.max(chunkSize, MIN_DECODING_CAPACITY);
+            undecoded = ByteBuffer.allocate(capacity);
+            decoded = CharBuffer.allocate((int) Math.ceil(capacity * (double) decoder.maxCharsPerByte()) + 1);
+        }
+    }
+
+    /**
+     * Checks that the charset encodes whitespaces as single ASCII bytes and never uses these bytes inside other characters,
+     * so the encoded line can be cut by whitespace bytes without decoding. It is true for UTF-8 and single byte charsets.
+     */
+    static boolean isCutByWhitespaceBytes(Charset charset) {
+        if (!charset.canEncode()) return false;
+        byte[] encoded = WHITESPACES.getBytes(charset);
+        if (encoded.length != WHITESPACES.length()) return false;
+        for (int i = 0; i < encoded.length; i++) {
+            if (encoded[i] != WHITESPACES.charAt(i)) return false;
+        }
+        return StandardCharsets.UTF_8.equals(charset) || charset.newEncoder().maxBytesPerChar() == 1;
+    }
+
+    static boolean isWhitespace(byte value) {
+        return value == ' ' || (value >= '\t' && value <= '\r');
+    }
+
+    static boolean isWhitespace(char value) {
+        return value == ' ' || (value >= '\t' && value <= '\r');
+    }
+
+    /**
+     * Processes all remaining bytes of the buffer. Buffer position is moved to its limit.
+     */
+    void feed(ByteBuffer bytes) {
+        if (!byteLevel) {
+            decodeChunks(bytes);
+        } else if (bytes.hasArray()) {
+            int from = bytes.arrayOffset() + bytes.position();
+            scan(bytes.array(), from, from + bytes.remaining());
+            bytes.position(bytes.limit());
+        } else {
+            while (bytes.hasRemaining()) {
+                int readCount = Math.min(bytes.remaining(), chunk.length);
+                bytes.get(chunk, 0, readCount);
+                scan(chunk, 0, readCount);
+            }
+        }
+    }
+
+    void feed(byte[] bytes, int offset, int length) {
+        if (byteLevel) scan(bytes, offset, offset + length);
+        else decodeChunks(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    /**
+     * Processes already decoded chars. Input of one tokenizer should be fed either by bytes or by chars,
+     * as the split word is carried over separately for them.
+     */
+    void feed(CharSequence chars) {
+        if (charsChunk == null) charsChunk = new char[chunk.length];
+        for (int offset = 0; offset < chars.length(); offset += charsChunk.length) {
+            int length = Math.min(charsChunk.length, chars.length() - offset);
+            if (chars instanceof String) {
+                ((String) chars).getChars(offset, offset + length, charsChunk, 0);
+            } else {
+                for (int i = 0; i < length; i++) charsChunk[i] = chars.charAt(offset + i);
+            }
+            scanChars(charsChunk, 0, length);
+        }
+    }
+
+    /**
+     * Passes the last word to the consumer. It must be called when the whole input is fed.
+     * Tokenizer can be used for the next input after this call.
+     */
+    void finish() {
+        if (byteLevel) {
+            emitPendingBytes();
+        } else {
+            undecoded.flip();
+            decoder.decode(undecoded, decoded, true);
+            decoder.flush(decoded);
+            decoder.reset();
+            undecoded.clear();
+            scanDecoded();
+        }
+        emitPendingChars();
+    }
+
+    /**
+     * Starts the next input, which is passed to another consumer, so buffers of the tokenizer are reused for many inputs.
+     * The rest of the previous input is dropped, even if it failed before {@link #finish()}.
+     */
+    void reset(WordConsumer consumer) {
+        this.consumer = consumer;
+        pendingBytesLength = 0;
+        pendingCharsLength = 0;
+        decoder.reset();
+        if (!byteLevel) {
+            undecoded.clear();
+            decoded.clear();
+        }
+    }
+
+    private void scan(byte[] bytes, int from, int to) {
+        int wordStart = from;
+        for (int i = from; i < to; i++) {
+            if (isWhitespace(bytes[i])) {
+                if (pendingBytesLength > 0) {
+                    appendPending(bytes, wordStart, i - wordStart);
+                    emitPendingBytes();
+                } else if (i > wordStart) {
+                    emit(bytes, wordStart, i - wordStart);
+                }
+                wordStart = i + 1;
+            }
+        }
+        // memorize split part till the next chunk
+        if (wordStart < to) appendPending(bytes, wordStart, to - wordStart);
+    }
+
+    private void appendPending(byte[] bytes, int offset, int length) {
+        if (pendingBytesLength + length > pendingBytes.length) {
+            byte[] grown = new byte[Math.max(pendingBytes.length * 2, pendingBytesLength + length)];
+            System.arraycopy(pendingBytes, 0, grown, 0, pendingBytesLength);
+            pendingBytes = grown;
+            pendingView = ByteBuffer.wrap(pendingBytes);
+        }
+        System.arraycopy(bytes, offset, pendingBytes, pendingBytesLength, length);
+        pendingBytesLength += length;
+    }
+
+    private void emitPendingBytes() {
+        if (pendingBytesLength > 0) {
+            int length = pendingBytesLength;
+            pendingBytesLength = 0;
+            emit(pendingBytes, 0, length);
+        }
+    }
+
+    private void emit(byte[] bytes, int offset, int length) {
+        ensureWordCapacity(length);
+        if (singleByteChars != null) {
+            for (int i = 0; i < length; i++) wordChars[i] = singleByteChars[bytes[offset + i] & 0xFF];
+            consumer.accept(wordChars, 0, length);
+            return;
+        }
+        if (utf8) {
+            int i = 0;
+            while (i < length && bytes[offset + i] >= 0) {
+                wordChars[i] = (char) bytes[offset + i];
+                i++;
+            }
+            if (i == length) {
+                consumer.accept(wordChars, 0, length);
+                return;
+            }
+        }
+        ByteBuffer in = view(bytes);
+        in.limit(offset + length).position(offset);
+        wordView.clear();
+        decoder.reset();
+        decoder.decode(in, wordView, true);
+        decoder.flush(wordView);
+        consumer.accept(wordChars, 0, wordView.position());
+    }
+
+    private ByteBuffer view(byte[] bytes) {
+        ByteBuffer view;
+        if (bytes == pendingBytes) {
+            view = pendingView;
+        } else if (bytes == chunk) {
+            view = chunkView;
+        } else {
+            if (bytes != inputArray) {
+                inputArray = bytes;
+                inputView = ByteBuffer.wrap(bytes);
+            }
+            view = inputView;
+        }
+        view.clear();
+        return view;
+    }
+
+    private void ensureWordCapacity(int bytesLength) {
+        int capacity = (int) Math.ceil(bytesLength * (double) decoder.maxCharsPerByte());
+        if (capacity > wordChars.length) {
+            wordChars = new char[Math.max(wordChars.length * 2, capacity)];
+            wordView = CharBuffer.wrap(wordChars);
+        }
+    }
+
+    private void decodeChunks(ByteBuffer bytes) {
+        while (bytes.hasRemaining()) {
+            int limit = bytes.limit();
+            bytes.limit(bytes.position() + Math.min(bytes.remaining(), undecoded.remaining()));
+            undecoded.put(bytes);
+            bytes.limit(limit);
+            undecoded.flip();
+            // incomplete multi byte sequence at the end of chunk is left in the buffer till the next chunk
+            decoder.decode(undecoded, decoded, false);
+            undecoded.compact();
+            scanDecoded();
+        }
+    }
+
+    private void scanDecoded() {
+        decoded.flip();
+        int from = decoded.arrayOffset() + decoded.position();
+        scanChars(decoded.array(), from, from + decoded.remaining());
+        decoded.clear();
+    }
+
+    private void scanChars(char[] chars, int from, int to) {
+        int wordStart = from;
+        for (int i = from; i < to; i++) {
+            if (isWhitespace(chars[i])) {
+                if (pendingCharsLength > 0) {
+                    appendPendingChars(chars, wordStart, i - wordStart);
+                    emitPendingChars();
+                } else if (i > wordStart) {
+                    consumer.accept(chars, wordStart, i - wordStart);
+                }
+                wordStart = i + 1;
+            }
+        }
+        if (wordStart < to) appendPendingChars(chars, wordStart, to - wordStart);
+    }
+
+    private void appendPendingChars(char[] chars, int offset, int length) {
+        if (pendingCharsLength + length > wordChars.length) {
+            char[] grown = new char[Math.max(wordChars.length * 2, pendingCharsLength + length)];
+            System.arraycopy(wordChars, 0, grown, 0, pendingCharsLength);
+            wordChars = grown;
+            wordView = CharBuffer.wrap(wordChars);
+        }
+        System.arraycopy(chars, offset, wordChars, pendingCharsLength, length);
+        pendingCharsLength += length;
+    }
+
+    private void emitPendingChars() {
+        if (pendingCharsLength > 0) {
+            int length = pendingCharsLength;
+            pendingCharsLength = 0;
+            consumer.accept(wordChars, 0, length);
+        }
+    }
+
+    /**
+     * Decoded chars of the single byte charset, indexed by unsigned byte value.
+     */
+    static char[] decodeAllBytes(Charset charset) {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) bytes[i] = (byte) i;
+        return new String(bytes, charset).toCharArray();
+    }
+}
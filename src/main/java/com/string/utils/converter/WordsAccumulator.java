@@ -0,0 +1,148 @@
+package com.string.utils.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental version of {@link StringToMapConverter}, which is fed by chunks of the line instead of a file path.
+ * Chunks can be of any size, the word which is split between chunks is assembled before grouping.
+ * So data received from sockets, decompressors, etc. can be grouped while it is read, without temporary file.
+ * {@link #finish()} returns the same map as {@link StringToMapConverter#fromFile(String)} for the same line.
+ * Instance is stateful and is not thread-safe, it should be created for every line.
+ */
+public class WordsAccumulator {
+
+    private final int bufferSize;
+    private final WordCollector collector;
+    private final WordTokenizer tokenizer;
+    private Boolean fedByBytes;
+    private boolean finished;
+
+    /**
+     * If instance of the class is created with this constructor, passed params override defaults.
+     */
+    public WordsAccumulator(int bufferSize, String charsetName, BuildMode buildMode) {
+        StringToMapConverter.validateArguments(bufferSize, charsetName);
+        if (buildMode == null) throw new IllegalArgumentException("Illegal build mode");
+        Charset charset = Charset.forName(charsetName);
+        this.bufferSize = bufferSize;
+        this.collector = buildMode.newCollector(charset, GroupingKey.firstChar());
+        this.tokenizer = new WordTokenizer(charset, bufferSize, collector);
+    }
+
+    /**
+     * Feeds words into the passed collector, which is not created by a build mode.
+     */
+    WordsAccumulator(int bufferSize, Charset charset, WordCollector collector) {
+        this.bufferSize = bufferSize;
+        this.collector = collector;
+        this.tokenizer = new WordTokenizer(charset, bufferSize, collector);
+    }
+
+    /**
+     * If instance of the class is created with this constructor, {@link BuildMode#TREE_SET} is used.
+     */
+    public WordsAccumulator(int bufferSize, String charsetName) {
+        this(bufferSize, charsetName, BuildMode.TREE_SET);
+    }
+
+    /**
+     * If instance of the class is created with this constructor,
+     * {@link StringToMapConverter#DEFAULT_BUFFER_SIZE} and {@link StringToMapConverter#DEFAULT_CHARSET_NAME} are used.
+     */
+    public WordsAccumulator() {
+        this(StringToMapConverter.DEFAULT_BUFFER_SIZE, StringToMapConverter.DEFAULT_CHARSET_NAME);
+    }
+
+    /**
+     * Groups all remaining bytes of the buffer. Buffer position is moved to its limit.
+     */
+    public WordsAccumulator feed(ByteBuffer bytes) {
+        if (bytes == null) throw new IllegalArgumentException("Illegal byte buffer");
+        checkFeed(true);
+        tokenizer.feed(bytes);
+        return this;
+    }
+
+    public WordsAccumulator feed(byte[] bytes, int offset, int length) {
+        if (bytes == null || offset < 0 || length < 0 || offset + length > bytes.length) throw new IllegalArgumentException("Illegal byte array range");
+        checkFeed(true);
+        tokenizer.feed(bytes, offset, length);
+        return this;
+    }
+
+    public WordsAccumulator feed(byte[] bytes) {
+        if (bytes == null) throw new IllegalArgumentException("Illegal byte array");
+        return feed(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Groups already decoded chars. Accumulator can be fed either by bytes or by chars, but not by both.
+     */
+    public WordsAccumulator feed(CharSequence chars) {
+        if (chars == null) throw new IllegalArgumentException("Illegal char sequence");
+        checkFeed(false);
+        tokenizer.feed(chars);
+        return this;
+    }
+
+    /**
+     * Reads the channel till the end of stream by chunks of buffer size. Channel is not closed.
+     * For non-blocking channel only currently available bytes are read, so the method should be invoked again when channel is ready.
+     */
+    public WordsAccumulator feed(ReadableByteChannel channel) throws IOException {
+        if (channel == null) throw new IllegalArgumentException("Illegal channel");
+        checkFeed(true);
+        // heap buffer is scanned by tokenizer without copying
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        while (channel.read(buffer) > 0) {
+            buffer.flip();
+            tokenizer.feed(buffer);
+            buffer.clear();
+        }
+        return this;
+    }
+
+    /**
+     * Reads the stream till its end by chunks of buffer size. Stream is not closed.
+     */
+    public WordsAccumulator feed(InputStream stream) throws IOException {
+        if (stream == null) throw new IllegalArgumentException("Illegal input stream");
+        checkFeed(true);
+        byte[] buffer = new byte[bufferSize];
+        int readCount;
+        while ((readCount = stream.read(buffer)) != -1) {
+            tokenizer.feed(buffer, 0, readCount);
+        }
+        return this;
+    }
+
+    /**
+     * Groups the last word and returns the map according to task requirements.
+     * Accumulator can not be fed after this call.
+     */
+    public Map<String, Set<String>> finish() {
+        return finishCollecting().result();
+    }
+
+    /**
+     * Groups the last word and returns the collector itself instead of the map.
+     */
+    WordCollector finishCollecting() {
+        if (finished) throw new IllegalStateException("Accumulator is already finished");
+        finished = true;
+        tokenizer.finish();
+        return collector;
+    }
+
+    private void checkFeed(boolean byBytes) {
+        if (finished) throw new IllegalStateException("Accumulator is already finished");
+        if (fedByBytes == null) fedByBytes = byBytes;
+        else if (fedByBytes != byBytes) throw new IllegalStateException("Accumulator can not be fed by bytes and chars at the same time");
+    }
+}
@@ -2,54 +2,280 @@ package com.string.utils.creator;
 
 import lombok.extern.slf4j.Slf4j;
 
-import java.io.*;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.file.StandardOpenOption.*;
 
 /**
  * Util class to split dictionary file into smaller ones.
  * Dictionary file is represented by file with one word in every single line.
+ *
+ * Dictionary is read by large buffers, words are encoded into per letter batches of direct buffers.
+ * Full batches are written by writer lanes in parallel. Every letter is always written by the same lane,
+ * so words keep the dictionary order, and every lane keeps its own LRU pool of open channels,
+ * so the number of open files is bounded for any number of letters.
+ * Buffered data is bounded too: when all batch buffers are in use, all batches are flushed.
  */
 @Slf4j
 public class DictionarySeparator {
 
+    public static final int DEFAULT_MAX_OPEN_FILES = 256;
+    private static final int READ_BUFFER_SIZE = 1024 * 1024;
+    private static final int BATCH_SIZE = 64 * 1024;
+    /**
+     * Maximum number of batch buffers, so at most 64Mb of words are buffered.
+     */
+    private static final int MAX_BATCHES = 1024;
+
     private String dictionaryFilePath;
+    /**
+     * Charset of the dictionary and the resulting files.
+     */
+    private final Charset charset;
+    private final int maxOpenFiles;
+    private final int threads;
 
     public DictionarySeparator(String dictionaryFilePath) {
+        this(dictionaryFilePath, Charset.defaultCharset().name(), DEFAULT_MAX_OPEN_FILES, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param maxOpenFiles maximum number of resulting files, which are open at the same time.
+     * @param threads number of writer threads, it is not greater than maxOpenFiles.
+     */
+    public DictionarySeparator(String dictionaryFilePath, String charsetName, int maxOpenFiles, int threads) {
         if (!PathChecker.isValid(dictionaryFilePath)) throw new IllegalArgumentException("Illegal basic directory path");
+        if (charsetName == null || charsetName.isEmpty()) throw new IllegalArgumentException("Illegal charset name");
+        if (maxOpenFiles < 1) throw new IllegalArgumentException("Illegal max open files count");
+        if (threads < 1) throw new IllegalArgumentException("Illegal threads count");
         this.dictionaryFilePath = dictionaryFilePath;
+        this.charset = Charset.forName(charsetName);
+        this.maxOpenFiles = maxOpenFiles;
+        this.threads = Math.min(threads, maxOpenFiles);
     }
 
+    /**
+     * Writes words of every first letter into the file named by this letter in the destination directory.
+     * Existing files are overwritten. Empty lines are skipped.
+     */
     public void byFirstLetter(String destinationDirPath) {
-        Map<String, BufferedWriter> dictionaries = new HashMap<>();
-        try (Scanner scanner = new Scanner(new BufferedReader(new FileReader(dictionaryFilePath)))) {
-            while (scanner.hasNextLine()) {
-                String word = scanner.nextLine();
-                String firstLetter = word.substring(0,1);
-                BufferedWriter writer = dictionaries.get(firstLetter);
-                if (writer == null) {
-                    writer = new BufferedWriter(new FileWriter(destinationDirPath + "\\" + firstLetter));
-                    dictionaries.put(firstLetter, writer);
-                }
-                writer.write(word);
-                writer.newLine();
-            }
+        if (!PathChecker.isValid(destinationDirPath)) throw new IllegalArgumentException("Illegal destination directory path");
+        Separation separation = new Separation(Paths.get(destinationDirPath));
+        try (FileChannel dictionary = FileChannel.open(Paths.get(dictionaryFilePath), READ)) {
+            separation.read(dictionary);
         } catch (IOException e) {
-            LOGGER.error(e.getMessage());
-        }
-        finally {
-            closeWriters(dictionaries.values());
+            separation.fail(e);
+        } finally {
+            separation.finish();
         }
+        Exception error = separation.error.get();
+        if (error != null) LOGGER.error(error.getMessage());
     }
 
-    private void closeWriters(Collection<BufferedWriter> writers) {
-        for (BufferedWriter writer : writers) {
+    /**
+     * State of a single byFirstLetter() invocation.
+     */
+    private final class Separation {
+
+        private final Path destinationDir;
+        private final Lane[] lanes = new Lane[threads];
+        private final Map<Character, ByteBuffer> batches = new HashMap<>();
+        private final BlockingQueue<ByteBuffer> freeBatches = new LinkedBlockingQueue<>();
+        private final AtomicReference<Exception> error = new AtomicReference<>();
+        private final CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final byte[] lineSeparator = System.lineSeparator().getBytes(charset);
+        private int allocatedBatches;
+
+        Separation(Path destinationDir) {
+            this.destinationDir = destinationDir;
+            int openFilesPerLane = Math.max(1, maxOpenFiles / threads);
+            for (int i = 0; i < lanes.length; i++) lanes[i] = new Lane(openFilesPerLane);
+        }
+
+        void read(FileChannel dictionary) throws IOException {
+            CharsetDecoder decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            ByteBuffer bytes = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+            CharBuffer chars = CharBuffer.allocate(READ_BUFFER_SIZE);
+            boolean endOfInput = false;
+            while (!endOfInput && error.get() == null) {
+                endOfInput = dictionary.read(bytes) == -1;
+                bytes.flip();
+                decoder.decode(bytes, chars, endOfInput);
+                if (endOfInput) decoder.flush(chars);
+                bytes.compact();
+                chars.flip();
+                separateLines(chars, endOfInput);
+                chars.compact();
+                // line is longer than the buffer
+                if (!chars.hasRemaining()) chars = grow(chars);
+            }
+        }
+
+        /**
+         * Separates all complete lines, the last line is complete only at the end of input.
+         */
+        private void separateLines(CharBuffer chars, boolean endOfInput) {
+            int lineStart = chars.position();
+            for (int i = lineStart; i < chars.limit(); i++) {
+                if (chars.get(i) != '\n') continue;
+                addWord(chars, lineStart, i);
+                lineStart = i + 1;
+            }
+            if (endOfInput) {
+                addWord(chars, lineStart, chars.limit());
+                lineStart = chars.limit();
+            }
+            chars.position(lineStart);
+        }
+
+        private void addWord(CharBuffer chars, int start, int end) {
+            if (end > start && chars.get(end - 1) == '\r') end--;
+            if (end == start) return;
+            char letter = chars.get(start);
+            CharBuffer word = chars.duplicate();
+            word.limit(end).position(start);
+            int maxLength = (int) Math.ceil((end - start) * (double) encoder.maxBytesPerChar()) + lineSeparator.length;
+            ByteBuffer batch = batches.get(letter);
+            if (batch != null && batch.remaining() < maxLength) {
+                batches.remove(letter);
+                submit(letter, batch);
+                batch = null;
+            }
+            if (batch == null) {
+                batch = maxLength > BATCH_SIZE ? ByteBuffer.allocateDirect(maxLength) : acquireBatch();
+                batches.put(letter, batch);
+            }
+            encoder.reset();
+            encoder.encode(word, batch, true);
+            encoder.flush(batch);
+            batch.put(lineSeparator);
+        }
+
+        private ByteBuffer acquireBatch() {
+            ByteBuffer batch = freeBatches.poll();
+            if (batch != null) return batch;
+            if (allocatedBatches < MAX_BATCHES) {
+                allocatedBatches++;
+                return ByteBuffer.allocateDirect(BATCH_SIZE);
+            }
+            // all buffers are in use, so partially filled batches are written as well
+            flushBatches();
             try {
-                writer.close();
-            } catch (IOException e) {
-                LOGGER.error(e.getMessage());
+                return freeBatches.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Separation is interrupted", e);
+            }
+        }
+
+        private void flushBatches() {
+            batches.forEach(this::submit);
+            batches.clear();
+        }
+
+        private void submit(char letter, ByteBuffer batch) {
+            batch.flip();
+            lanes[letter % lanes.length].write(letter, batch);
+        }
+
+        void finish() {
+            flushBatches();
+            for (Lane lane : lanes) lane.close();
+        }
+
+        void fail(Exception e) {
+            error.compareAndSet(null, e);
+        }
+
+        private CharBuffer grow(CharBuffer chars) {
+            CharBuffer grown = CharBuffer.allocate(chars.capacity() * 2);
+            chars.flip();
+            grown.put(chars);
+            return grown;
+        }
+
+        /**
+         * Single writer thread and its channels. Channels are accessed only by the lane thread.
+         */
+        private final class Lane {
+
+            private final ExecutorService executor = Executors.newSingleThreadExecutor();
+            private final Set<Character> created = new HashSet<>();
+            private final Map<Character, FileChannel> channels;
+
+            Lane(int maxOpenFiles) {
+                // access ordered map evicts and closes the least recently written file
+                this.channels = new LinkedHashMap<Character, FileChannel>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Character, FileChannel> eldest) {
+                        if (size() <= maxOpenFiles) return false;
+                        closeChannel(eldest.getValue());
+                        return true;
+                    }
+                };
+            }
+
+            void write(char letter, ByteBuffer batch) {
+                executor.execute(() -> {
+                    try {
+                        if (error.get() != null) return;
+                        FileChannel channel = channel(letter);
+                        while (batch.hasRemaining()) channel.write(batch);
+                    } catch (IOException | InvalidPathException e) {
+                        fail(e);
+                    } finally {
+                        batch.clear();
+                        if (batch.capacity() == BATCH_SIZE) freeBatches.add(batch);
+                    }
+                });
+            }
+
+            private FileChannel channel(char letter) throws IOException {
+                FileChannel channel = channels.get(letter);
+                if (channel != null) return channel;
+                Path file = destinationDir.resolve(String.valueOf(letter));
+                // the first open truncates the file of a previous run, reopening after eviction appends
+                channel = created.add(letter)
+                        ? FileChannel.open(file, CREATE, TRUNCATE_EXISTING, WRITE)
+                        : FileChannel.open(file, CREATE, APPEND, WRITE);
+                channels.put(letter, channel);
+                return channel;
+            }
+
+            void close() {
+                executor.execute(() -> {
+                    channels.values().forEach(this::closeChannel);
+                    channels.clear();
+                });
+                executor.shutdown();
+                try {
+                    while (!executor.awaitTermination(1, TimeUnit.MINUTES)) LOGGER.info("Waiting for dictionary writers");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    fail(e);
+                }
+            }
+
+            private void closeChannel(FileChannel channel) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    fail(e);
+                }
             }
         }
     }
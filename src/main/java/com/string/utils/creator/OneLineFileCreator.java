@@ -3,17 +3,41 @@ package com.string.utils.creator;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.*;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Random;
-import java.util.Scanner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
 
 /**
- * Util class to create file with single line
+ * Util class to create file with single line.
+ * {@link #randomLine(String, long)} is the original script style implementation.
+ * generate...() methods are the generator mode for big reproducible inputs: dictionaries are loaded and encoded once,
+ * line is generated by blocks in parallel, every block has its own random split from the seed in order,
+ * so the output depends only on the seed, dictionaries and the limit. Blocks are written in order by file channel.
  */
 @Slf4j
 public class OneLineFileCreator {
 
+    /**
+     * Number of words or bytes generated by a single task in generator mode.
+     */
+    private static final int BLOCK_WORDS = 64 * 1024;
+    private static final int BLOCK_SIZE = 4 * 1024 * 1024;
+    /**
+     * Number of blocks generated at once per pool thread, their buffers are reused by the next blocks.
+     */
+    private static final int BLOCKS_PER_THREAD = 2;
+
     /**
      * Filesystem path to dictionary files directory.
      */
@@ -21,9 +45,57 @@ public class OneLineFileCreator {
     private int dictionariesCount;
     private Map<Integer,File> dictionaries = new HashMap<>();
 
+    /**
+     * Charset of dictionary files and generated line in generator mode.
+     */
+    private final Charset charset;
+    /**
+     * Exponent of Zipf distribution of words in generator mode, zero means that all words are equally probable.
+     */
+    private double zipfExponent;
+    /**
+     * Words of all dictionaries encoded with the trailing space one after another, loaded once.
+     * Word i occupies bytes from wordOffsets[i] till wordOffsets[i + 1]. Single array keeps random word lookups cache friendly.
+     */
+    private byte[] wordBytes;
+    private int[] wordOffsets;
+    private int wordsCount;
+    private int maxEncodedLength;
+
     public OneLineFileCreator(String dictionariesDirPath) {
+        this(dictionariesDirPath, Charset.defaultCharset().name());
+    }
+
+    public OneLineFileCreator(String dictionariesDirPath, String charsetName) {
         if (!PathChecker.isValid(dictionariesDirPath)) throw new IllegalArgumentException("Illegal dictionaries directory path");
+        if (charsetName == null || charsetName.isEmpty()) throw new IllegalArgumentException("Illegal charset name");
         this.dictionariesDirPath = dictionariesDirPath;
+        this.charset = Charset.forName(charsetName);
+    }
+
+    /**
+     * Sets exponent of Zipf distribution in generator mode: word of rank r is chosen with probability proportional to 1/r^exponent.
+     * Ranks are assigned to dictionary words in random order, which depends on the seed. Zero gives uniform distribution.
+     */
+    public void setZipfExponent(double zipfExponent) {
+        if (zipfExponent < 0 || Double.isNaN(zipfExponent) || Double.isInfinite(zipfExponent)) throw new IllegalArgumentException("Illegal Zipf exponent");
+        this.zipfExponent = zipfExponent;
+    }
+
+    /**
+     * Generates single line of exactly wordsCount words separated by space symbol, every word is followed by space as in {@link #randomLine(String, long)}.
+     */
+    public void generateByWordsCount(String destinationPath, long wordsCount, long seed) throws IOException {
+        if (wordsCount < 0) throw new IllegalArgumentException("Illegal words count");
+        generate(destinationPath, wordsCount, true, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates single line of at least size bytes. Line ends by a whole word, so it can exceed the size by less than a word per block.
+     */
+    public void generateBySize(String destinationPath, long size, long seed) throws IOException {
+        if (size < 0) throw new IllegalArgumentException("Illegal size");
+        generate(destinationPath, size, false, seed, ForkJoinPool.commonPool());
     }
 
     /**
@@ -70,4 +142,147 @@ public class OneLineFileCreator {
         dictionariesCount = dictionaryNumber;
         return scanners;
     }
+
+    private void generate(String destinationPath, long limit, boolean byWords, long seed, ForkJoinPool pool) throws IOException {
+        if (destinationPath == null || destinationPath.isEmpty()) throw new IllegalArgumentException("Illegal destination path");
+        loadDictionaries();
+        SplittableRandom root = new SplittableRandom(seed);
+        WordSampler sampler = new WordSampler(root.split());
+        int blockLimit = byWords ? BLOCK_WORDS : BLOCK_SIZE;
+        int capacity = (int) Math.min(Integer.MAX_VALUE, byWords ? (long) BLOCK_WORDS * maxEncodedLength : BLOCK_SIZE + maxEncodedLength);
+        byte[][] blocks = new byte[pool.getParallelism() * BLOCKS_PER_THREAD][];
+        try (FileChannel channel = FileChannel.open(Paths.get(destinationPath), CREATE, TRUNCATE_EXISTING, WRITE)) {
+            long remaining = limit;
+            while (remaining > 0) {
+                List<ForkJoinTask<ByteBuffer>> filled = new ArrayList<>();
+                for (int i = 0; i < blocks.length && remaining > 0; i++) {
+                    if (blocks[i] == null) blocks[i] = new byte[capacity];
+                    int blockLimitLeft = (int) Math.min(blockLimit, remaining);
+                    remaining -= blockLimitLeft;
+                    // randoms are split in block order, so the result does not depend on parallelism
+                    SplittableRandom random = root.split();
+                    byte[] block = blocks[i];
+                    filled.add(pool.submit(() -> fillBlock(block, random, sampler, blockLimitLeft, byWords)));
+                }
+                for (ForkJoinTask<ByteBuffer> block : filled) {
+                    ByteBuffer buffer = block.join();
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                }
+            }
+        }
+    }
+
+    private ByteBuffer fillBlock(byte[] block, SplittableRandom random, WordSampler sampler, int limit, boolean byWords) {
+        int position = 0;
+        for (int words = 0; byWords ? words < limit : position < limit; words++) {
+            int word = sampler.next(random);
+            int length = wordOffsets[word + 1] - wordOffsets[word];
+            System.arraycopy(wordBytes, wordOffsets[word], block, position, length);
+            position += length;
+        }
+        return ByteBuffer.wrap(block, 0, position);
+    }
+
+    /**
+     * Reads all dictionary files once, in the order of their names, so the word numbers do not depend on file system.
+     */
+    private synchronized void loadDictionaries() throws IOException {
+        if (wordBytes != null) return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        List<Integer> offsets = new ArrayList<>();
+        byte[] space = " ".getBytes(charset);
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(Paths.get(dictionariesDirPath))) {
+            paths.filter(Files::isRegularFile).sorted().forEach(files::add);
+        }
+        for (Path file : files) {
+            try (BufferedReader reader = Files.newBufferedReader(file, charset)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String word = line.trim();
+                    if (word.isEmpty()) continue;
+                    byte[] encoded = word.getBytes(charset);
+                    offsets.add(bytes.size());
+                    bytes.write(encoded);
+                    bytes.write(space);
+                    maxEncodedLength = Math.max(maxEncodedLength, encoded.length + space.length);
+                }
+            }
+        }
+        if (offsets.isEmpty()) throw new IllegalStateException("Dictionaries contain no words");
+        wordsCount = offsets.size();
+        wordOffsets = new int[wordsCount + 1];
+        for (int i = 0; i < wordsCount; i++) wordOffsets[i] = offsets.get(i);
+        wordOffsets[wordsCount] = bytes.size();
+        wordBytes = bytes.toByteArray();
+        LOGGER.info("{} words are loaded from {} dictionaries", wordsCount, files.size());
+    }
+
+    /**
+     * Chooses word numbers uniformly or by Zipf distribution. Immutable, so it is shared by all blocks.
+     * Zipf distribution is sampled by Vose's alias method: a random column is taken, then either the column word
+     * or its alias is chosen by the column probability. So a word costs two random numbers instead of a binary search.
+     */
+    private final class WordSampler {
+
+        /**
+         * Word of every column, its probability and alias word, all null for uniform distribution.
+         */
+        private final int[] words;
+        private final double[] probabilities;
+        private final int[] aliases;
+
+        WordSampler(SplittableRandom random) {
+            if (zipfExponent == 0) {
+                words = null;
+                probabilities = null;
+                aliases = null;
+                return;
+            }
+            int count = wordsCount;
+            words = new int[count];
+            for (int i = 0; i < count; i++) words[i] = i;
+            // Fisher-Yates shuffle, so ranks and frequent words are not the first dictionary words
+            for (int i = count - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = words[i];
+                words[i] = words[j];
+                words[j] = swap;
+            }
+            probabilities = new double[count];
+            double sum = 0;
+            for (int rank = 0; rank < count; rank++) {
+                probabilities[rank] = 1 / Math.pow(rank + 1, zipfExponent);
+                sum += probabilities[rank];
+            }
+            // scaled so the average column is 1, columns below 1 are filled by aliases from columns above 1
+            int[] small = new int[count];
+            int[] large = new int[count];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int rank = 0; rank < count; rank++) {
+                probabilities[rank] *= count / sum;
+                if (probabilities[rank] < 1) small[smallCount++] = rank;
+                else large[largeCount++] = rank;
+            }
+            aliases = new int[count];
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                aliases[less] = words[more];
+                probabilities[more] -= 1 - probabilities[less];
+                if (probabilities[more] < 1) small[smallCount++] = more;
+                else large[largeCount++] = more;
+            }
+            // the rest differ from 1 only by rounding errors
+            while (largeCount > 0) probabilities[large[--largeCount]] = 1;
+            while (smallCount > 0) probabilities[small[--smallCount]] = 1;
+        }
+
+        int next(SplittableRandom random) {
+            if (words == null) return random.nextInt(wordsCount);
+            int column = random.nextInt(words.length);
+            return random.nextDouble() < probabilities[column] ? words[column] : aliases[column];
+        }
+    }
 }
@@ -0,0 +1,177 @@
+package com.string.utils.converter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Conversions of the wrapped converter are counted by {@link ConversionMetricsRecorder}.
+ */
+public class CachingConverterTest {
+
+    private final static String WIN1251 = "Windows-1251";
+    private static final String LINE = "сапог сарай арбуз болт бокс биржа сапоги строка слово тест только привет пока прилет";
+    private static final String OTHER_LINE = "сапог сарай арбуз болт бокс биржа сапоги строка слово тест только привет пока прилёт";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ConversionMetricsRecorder recorder;
+    private StringToMapConverter converter;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        recorder = new ConversionMetricsRecorder();
+        converter = new StringToMapConverter(8, WIN1251);
+        converter.setConversionListener(recorder);
+        file = write("line.txt", LINE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCacheDirectory() {
+        new CachingConverter(converter, 1024).setCacheDirectory(file.getPath());
+    }
+
+    @Test
+    public void hitAndModification() throws IOException {
+        CachingConverter cache = new CachingConverter(converter, 1024 * 1024);
+        Map<String, Set<String>> first = cache.fromFile(file.getPath());
+        assertEquals(StringToMapConverter.fromString(LINE), first);
+        assertSame(first, cache.fromFile(file.getPath()));
+        assertEquals(1, recorder.getRecords().size());
+        assertEquals(1, cache.getHits());
+        Files.write(file.toPath(), OTHER_LINE.getBytes(Charset.forName(WIN1251)));
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        assertEquals(StringToMapConverter.fromString(OTHER_LINE), cache.fromFile(file.getPath()));
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnlyResult() {
+        new CachingConverter(converter, 1024 * 1024).fromFile(file.getPath()).get("с").add("сом");
+    }
+
+    @Test
+    public void contentHash() throws IOException {
+        CachingConverter cache = new CachingConverter(converter, 1024 * 1024);
+        cache.setContentHashing(true);
+        cache.fromFile(file.getPath());
+        // the same size and modification time
+        FileTime modified = Files.getLastModifiedTime(file.toPath());
+        Files.write(file.toPath(), OTHER_LINE.getBytes(Charset.forName(WIN1251)));
+        Files.setLastModifiedTime(file.toPath(), modified);
+        assertEquals(StringToMapConverter.fromString(OTHER_LINE), cache.fromFile(file.getPath()));
+        assertEquals(2, recorder.getRecords().size());
+    }
+
+    @Test
+    public void leastRecentlyUsedEviction() throws IOException {
+        File other = write("other.txt", OTHER_LINE);
+        // 14 words of about 90 bytes each, so only one result fits
+        CachingConverter cache = new CachingConverter(converter, 2000);
+        cache.fromFile(file.getPath());
+        cache.fromFile(other.getPath());
+        cache.fromFile(other.getPath());
+        cache.fromFile(file.getPath());
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertTrue(cache.getCachedSize() <= 2000);
+        CachingConverter zeroBudget = new CachingConverter(converter, 0);
+        zeroBudget.fromFile(file.getPath());
+        zeroBudget.fromFile(file.getPath());
+        assertEquals(2, zeroBudget.getMisses());
+    }
+
+    @Test
+    public void snapshots() throws IOException {
+        File directory = folder.newFolder("cache");
+        CachingConverter cache = new CachingConverter(converter, 1024 * 1024);
+        cache.setCacheDirectory(directory.getPath());
+        Map<String, Set<String>> converted = cache.fromFile(file.getPath());
+        assertEquals(1, directory.list().length);
+        // restarted JVM
+        CachingConverter restarted = new CachingConverter(converter, 1024 * 1024);
+        restarted.setCacheDirectory(directory.getPath());
+        Map<String, Set<String>> restored = restarted.fromFile(file.getPath());
+        assertEquals(converted, restored);
+        for (Map.Entry<String, Set<String>> byFirstLetter : converted.entrySet()) {
+            assertArrayEquals(byFirstLetter.getValue().toArray(), restored.get(byFirstLetter.getKey()).toArray());
+        }
+        assertEquals(1, restarted.getSnapshotHits());
+        assertEquals(1, recorder.getRecords().size());
+        // other charset is another key
+        StringToMapConverter utf8 = new StringToMapConverter(8, "UTF-8");
+        CachingConverter other = new CachingConverter(utf8, 1024 * 1024);
+        other.setCacheDirectory(directory.getPath());
+        other.fromFile(file.getPath());
+        assertEquals(1, other.getMisses());
+        assertEquals(2, directory.list().length);
+    }
+
+    @Test
+    public void brokenSnapshotIsConverted() throws IOException {
+        File directory = folder.newFolder("broken");
+        CachingConverter cache = new CachingConverter(converter, 1024 * 1024);
+        cache.setCacheDirectory(directory.getPath());
+        cache.fromFile(file.getPath());
+        File snapshot = directory.listFiles()[0];
+        byte[] bytes = Files.readAllBytes(snapshot.toPath());
+        // number of letters is replaced by a huge one right after the header and the key
+        int keyLength = ByteBuffer.wrap(bytes, 8, 4).getInt();
+        ByteBuffer.wrap(bytes, 12 + 2 * keyLength, 4).putInt(Integer.MAX_VALUE);
+        Files.write(snapshot.toPath(), bytes);
+        CachingConverter restarted = new CachingConverter(converter, 1024 * 1024);
+        restarted.setCacheDirectory(directory.getPath());
+        assertEquals(StringToMapConverter.fromString(LINE), restarted.fromFile(file.getPath()));
+        assertEquals(1, restarted.getMisses());
+        // snapshot is replaced by the valid one
+        CachingConverter again = new CachingConverter(converter, 1024 * 1024);
+        again.setCacheDirectory(directory.getPath());
+        assertEquals(StringToMapConverter.fromString(LINE), again.fromFile(file.getPath()));
+        assertEquals(1, again.getSnapshotHits());
+    }
+
+    @Test
+    public void snapshotOfNewVersionReplacesPrevious() throws IOException {
+        File directory = folder.newFolder("versions");
+        CachingConverter cache = new CachingConverter(converter, 1024 * 1024);
+        cache.setCacheDirectory(directory.getPath());
+        cache.fromFile(file.getPath());
+        Files.write(file.toPath(), OTHER_LINE.getBytes(Charset.forName(WIN1251)));
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        assertEquals(StringToMapConverter.fromString(OTHER_LINE), cache.fromFile(file.getPath()));
+        assertEquals(1, directory.list().length);
+    }
+
+    @Test
+    public void fileDeletedWhileConvertedIsConvertedOnce() {
+        CachingConverter cache = new CachingConverter(converter, 1024 * 1024);
+        cache.setContentHashing(true);
+        converter.setConversionListener(metrics -> {
+            recorder.converted(metrics);
+            assertTrue(file.delete());
+        });
+        assertEquals(StringToMapConverter.fromString(LINE), cache.fromFile(file.getPath()));
+        assertEquals(1, recorder.getRecords().size());
+        assertEquals(1, cache.getMisses());
+    }
+
+    private File write(String fileName, String line) throws IOException {
+        File file = folder.newFile(fileName);
+        Files.write(file.toPath(), line.getBytes(Charset.forName(WIN1251)));
+        return file;
+    }
+}
@@ -0,0 +1,117 @@
+package com.string.utils.converter;
+
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that words added by many threads give the same map as a single line.
+ */
+public class ConcurrentWordsAccumulatorTest {
+
+    private static final String LETTERS = "абвгдеёжзabcdef𝔘";
+    private static final int THREADS = 4;
+    private static final int WORDS_PER_THREAD = 20_000;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyWord() {
+        new ConcurrentWordsAccumulator().add("");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullGroupingKey() {
+        new ConcurrentWordsAccumulator(null);
+    }
+
+    @Test
+    public void addedByThreadsSameAsString() throws Exception {
+        List<String> parts = randomParts();
+        String line = String.join(" ", parts);
+        for (GroupingKey groupingKey : Arrays.asList(GroupingKey.firstChar(), GroupingKey.firstCodePoint(), GroupingKey.prefix(2))) {
+            ConcurrentWordsAccumulator accumulator = new ConcurrentWordsAccumulator(groupingKey);
+            ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+            try {
+                List<Future<?>> producers = new ArrayList<>();
+                for (String part : parts) producers.add(executor.submit(() -> accumulator.addWords(part)));
+                for (Future<?> producer : producers) producer.get(30, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdown();
+            }
+            Map<String, Set<String>> expected = StringToMapConverter.fromString(line, groupingKey);
+            Map<String, Set<String>> snapshot = accumulator.snapshot();
+            assertEquals(groupingKey.toString(), expected, snapshot);
+            for (Map.Entry<String, Set<String>> entry : expected.entrySet()) {
+                assertEquals(groupingKey + " " + entry.getKey(), new ArrayList<>(entry.getValue()), new ArrayList<>(snapshot.get(entry.getKey())));
+            }
+        }
+    }
+
+    @Test
+    public void snapshotWhileAdding() throws Exception {
+        ConcurrentWordsAccumulator accumulator = new ConcurrentWordsAccumulator();
+        List<String> parts = randomParts();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> producers = new ArrayList<>();
+            for (String part : parts) producers.add(executor.submit(() -> accumulator.addWords(part)));
+            Map<String, Set<String>> previous = Collections.emptyMap();
+            while (!producers.stream().allMatch(Future::isDone)) {
+                Map<String, Set<String>> snapshot = accumulator.snapshot();
+                for (Map.Entry<String, Set<String>> entry : snapshot.entrySet()) {
+                    assertTrue(entry.getValue().size() > 1);
+                    // words are never lost
+                    assertTrue(entry.getValue().containsAll(previous.getOrDefault(entry.getKey(), Collections.emptySet())));
+                }
+                assertTrue(snapshot.keySet().containsAll(previous.keySet()));
+                previous = snapshot;
+            }
+            for (Future<?> producer : producers) producer.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(StringToMapConverter.fromString(String.join(" ", parts)), accumulator.snapshot());
+    }
+
+    @Test
+    public void singleWordsAndDuplicates() {
+        ConcurrentWordsAccumulator accumulator = new ConcurrentWordsAccumulator();
+        accumulator.add("сапог");
+        accumulator.add("сапог");
+        accumulator.add("арбуз");
+        accumulator.add("ананас");
+        assertEquals(Collections.singleton("а"), accumulator.snapshot().keySet());
+        assertEquals(3, accumulator.distinctCount());
+        accumulator.add("слово");
+        assertEquals(Arrays.asList("сапог", "слово"), new ArrayList<>(accumulator.snapshot().get("с")));
+    }
+
+    @Test
+    public void reusedTokenizerStartsEveryText() {
+        ConcurrentWordsAccumulator accumulator = new ConcurrentWordsAccumulator();
+        // the last word of a text is not continued by the next one
+        accumulator.addWords("сапог сарай");
+        accumulator.addWords("слово\tсапоги");
+        accumulator.addWords("");
+        accumulator.addWords("строка");
+        assertEquals(StringToMapConverter.fromString("сапог сарай слово сапоги строка"), accumulator.snapshot());
+    }
+
+    private static List<String> randomParts() {
+        Random random = new Random(31);
+        int[] codePoints = LETTERS.codePoints().toArray();
+        List<String> parts = new ArrayList<>();
+        for (int t = 0; t < THREADS * 4; t++) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = 0; i < WORDS_PER_THREAD / 4; i++) {
+                int length = 1 + random.nextInt(8);
+                for (int j = 0; j < length; j++) builder.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+                builder.append(' ');
+            }
+            parts.add(builder.toString());
+        }
+        return parts;
+    }
+}
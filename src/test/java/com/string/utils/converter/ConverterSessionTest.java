@@ -0,0 +1,78 @@
+package com.string.utils.converter;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static com.string.utils.converter.WordFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a reused session gives the same maps as the converter for read and mapped files.
+ */
+public class ConverterSessionTest {
+
+    private static final String LETTERS = "абвгдеёжзabcdef𝔘";
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sameAsConverterForManyFiles() throws IOException {
+        for (String charsetName : Arrays.asList("UTF-8", "UTF-16", "Windows-1251")) {
+            // small buffer splits words between reads
+            StringToMapConverter converter = new StringToMapConverter(16, charsetName, 1001);
+            ConverterSession session = converter.newSession();
+            Random random = new Random(43);
+            // windows-1251 has no 𝔘
+            String letters = charsetName.startsWith("Windows") ? LETTERS.substring(0, LETTERS.length() - 2) : LETTERS;
+            for (int i = 0; i < 20; i++) {
+                // lines do not end with whitespace, so the last word of the previous file must not leak into the next one
+                int wordsCount = 1 + random.nextInt(2_000);
+                String line = randomLine(random, letters, wordsCount, 8, word -> word == wordsCount - 1 ? "" : (word + 1) % 50 == 0 ? "\n" : " ");
+                String path = write(folder, charsetName + i + ".txt", line, charsetName);
+                session.setPositionalReadThreshold(i % 2 == 0 ? ConverterSession.DEFAULT_POSITIONAL_READ_THRESHOLD : 0);
+                Map<String, Set<String>> expected = converter.fromFile(path);
+                Map<String, Set<String>> actual = session.fromFile(path);
+                assertEquals(charsetName + " " + i, expected, actual);
+                for (Map.Entry<String, Set<String>> entry : expected.entrySet()) {
+                    assertEquals(new ArrayList<>(entry.getValue()), new ArrayList<>(actual.get(entry.getKey())));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void settingsOfConverter() throws IOException {
+        String path = write(folder, "settings.txt", "слово сапог слон арбуз ананас ёж ель", "UTF-8");
+        StringToMapConverter converter = new StringToMapConverter();
+        converter.setTopK(2);
+        converter.setBuildMode(BuildMode.COMPACT);
+        ConverterSession session = converter.newSession();
+        // later changes are not seen by the session
+        converter.setTopK(0);
+        Map<String, Set<String>> result = session.fromFile(path);
+        assertEquals(Arrays.asList("сапог", "слово"), new ArrayList<>(result.get("с")));
+        assertEquals(new HashSet<>(Arrays.asList("а", "с")), result.keySet());
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        String path = write(folder, "empty.txt", "", "UTF-8");
+        assertTrue(new StringToMapConverter().newSession().fromFile(path).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingFile() {
+        new StringToMapConverter().newSession().fromFile(new File(folder.getRoot(), "missing.txt").getPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalThreshold() {
+        new StringToMapConverter().newSession().setPositionalReadThreshold(-1);
+    }
+}
@@ -0,0 +1,110 @@
+package com.string.utils.converter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class IncrementalConverterTest {
+
+    private final static String WIN1251 = "Windows-1251";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StringToMapConverter converter;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        converter = new StringToMapConverter(4, WIN1251);
+        file = folder.newFile("line.txt");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCharset() {
+        new IncrementalConverter(new StringToMapConverter(8, "UTF-16"), file.getPath());
+    }
+
+    @Test
+    public void appendsAreGrouped() throws IOException {
+        IncrementalConverter incremental = new IncrementalConverter(converter, file.getPath());
+        assertTrue(incremental.refresh().isEmpty());
+        String[] appends = {"сапог сарай ар", "буз болт ", "бокс", " биржа сапоги строка слово ", "тест только привет пока прилет"};
+        StringBuilder line = new StringBuilder();
+        for (String append : appends) {
+            append(append);
+            line.append(append);
+            Map<String, Set<String>> result = incremental.refresh();
+            assertEquals(line.toString(), converter.fromFile(file.getPath()), result);
+        }
+        assertEquals(line.length() - "прилет".length(), incremental.getOffset());
+    }
+
+    @Test
+    public void prunedLetterComesBack() throws IOException {
+        IncrementalConverter incremental = new IncrementalConverter(converter, file.getPath());
+        append("арбуз болт бокс ");
+        assertFalse(incremental.refresh().containsKey("а"));
+        append("арка ");
+        assertEquals(StringToMapConverter.fromString("арбуз болт бокс арка"), incremental.refresh());
+    }
+
+    @Test
+    public void replacedFileIsProcessedAgain() throws IOException {
+        IncrementalConverter incremental = new IncrementalConverter(converter, file.getPath());
+        append("сапог сарай сапоги строка слово ");
+        incremental.refresh();
+        Files.write(file.toPath(), "болт бокс".getBytes(Charset.forName(WIN1251)));
+        assertEquals(StringToMapConverter.fromString("болт бокс"), incremental.refresh());
+    }
+
+    @Test
+    public void renamedFileOfTheSameSizeIsProcessedAgain() throws IOException {
+        IncrementalConverter incremental = new IncrementalConverter(converter, file.getPath());
+        append("сапог сарай ");
+        incremental.refresh();
+        File saved = folder.newFile("line.txt.tmp");
+        Files.write(saved.toPath(), "болт бокс  ".getBytes(Charset.forName(WIN1251)));
+        Files.move(saved.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        assertEquals(StringToMapConverter.fromString("болт бокс"), incremental.refresh());
+    }
+
+    @Test
+    public void longerRewriteIsProcessedAgain() throws IOException {
+        IncrementalConverter incremental = new IncrementalConverter(converter, file.getPath());
+        append("сапог сарай ");
+        incremental.refresh();
+        Files.write(file.toPath(), "болт бокс сапог ".getBytes(Charset.forName(WIN1251)));
+        assertEquals(StringToMapConverter.fromString("болт бокс сапог"), incremental.refresh());
+    }
+
+    @Test
+    public void sameSizeRewriteIsProcessedAgain() throws IOException {
+        IncrementalConverter incremental = new IncrementalConverter(converter, file.getPath());
+        String tail = String.join("", Collections.nCopies(16, "сарай "));
+        append("сапог " + tail);
+        incremental.refresh();
+        // only the first word is changed, so the last processed bytes are the same
+        Files.write(file.toPath(), ("бокса " + tail).getBytes(Charset.forName(WIN1251)));
+        Files.setLastModifiedTime(file.toPath(), FileTime.fromMillis(file.lastModified() + 2000));
+        assertEquals(StringToMapConverter.fromString("бокса " + tail), incremental.refresh());
+    }
+
+    private void append(String chars) throws IOException {
+        Files.write(file.toPath(), chars.getBytes(Charset.forName(WIN1251)), StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,164 @@
+package com.string.utils.converter;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static com.string.utils.converter.WordFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the streamed text is the same as the text of the map, which is built in heap.
+ */
+public class ResultWriterTest {
+
+    private static final String LETTERS = "абвгдеёжзabcdef𝔘";
+    private static final int WORDS_COUNT = 20_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static String line;
+    private static String generated;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        line = randomLine(new Random(41), LETTERS, WORDS_COUNT, 8);
+        generated = write(folder, "writer.txt", line, "UTF-8");
+    }
+
+    @Test
+    public void mapFormatSameAsToString() throws IOException {
+        Map<String, Set<String>> expected = StringToMapConverter.fromString(line);
+        assertEquals(encoded(expected.toString(), "UTF-8"), writeTo(new StringToMapConverter(), generated, ResultFormat.MAP));
+    }
+
+    @Test
+    public void lineFormats() throws IOException {
+        String path = write(folder, "lines.txt", "слово сапог слон арбуз ананас дом", "UTF-8");
+        StringToMapConverter converter = new StringToMapConverter();
+        assertEquals("а: ананас арбуз\nс: сапог слово слон\n", writeTo(converter, path, ResultFormat.LETTER_LINES));
+        assertEquals("а\tананас\nа\tарбуз\nс\tсапог\nс\tслово\nс\tслон\n", writeTo(converter, path, ResultFormat.WORD_LINES));
+        assertEquals("{}", writeTo(converter, write(folder, "empty.txt", "дом", "UTF-8"), ResultFormat.MAP));
+    }
+
+    @Test
+    public void smallBufferAndBuildModes() throws IOException {
+        String expected = encoded(StringToMapConverter.fromString(line).toString(), "UTF-8");
+        for (BuildMode mode : BuildMode.values()) {
+            // buffer of 8 bytes is flushed inside almost every word
+            StringToMapConverter converter = new StringToMapConverter(8, "UTF-8");
+            converter.setBuildMode(mode);
+            assertEquals(mode.toString(), expected, writeTo(converter, generated, ResultFormat.MAP));
+        }
+    }
+
+    @Test
+    public void charsetOfInstance() throws IOException {
+        // byte order mark is written only once
+        String path = write(folder, "utf16.txt", line, "UTF-16");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new StringToMapConverter(64, "UTF-16").writeTo(path, Channels.newChannel(bytes), ResultFormat.LETTER_LINES);
+        assertEquals(encoded(format(StringToMapConverter.fromString(line)), "UTF-16"), new String(bytes.toByteArray(), "UTF-16"));
+    }
+
+    @Test
+    public void outputFile() throws IOException {
+        Path output = folder.newFile("result.txt").toPath();
+        Files.write(output, new byte[100_000]);
+        new StringToMapConverter().writeTo(generated, output, ResultFormat.LETTER_LINES);
+        assertEquals(encoded(format(StringToMapConverter.fromString(line)), "UTF-8"), new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void readErrorWritesNothing() throws IOException {
+        // directory is a valid path, but it can not be read as a file
+        String directory = folder.newFolder().getPath();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            new StringToMapConverter().writeTo(directory, Channels.newChannel(bytes), ResultFormat.MAP);
+            fail("Read error is not thrown");
+        } catch (IOException expected) {
+            assertEquals(0, bytes.size());
+        }
+        Path output = folder.newFile("kept.txt").toPath();
+        Files.write(output, "previous".getBytes(StandardCharsets.UTF_8));
+        try {
+            new StringToMapConverter().writeTo(directory, output, ResultFormat.MAP);
+            fail("Read error is not thrown");
+        } catch (IOException expected) {
+            assertEquals("previous", new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+        }
+        assertEquals(1, output.getParent().toFile().list((dir, name) -> name.startsWith("kept.txt")).length);
+    }
+
+    @Test
+    public void outputIsInput() throws IOException {
+        String path = write(folder, "same.txt", "слово сапог", "UTF-8");
+        try {
+            new StringToMapConverter().writeTo(path, new File(path).toPath(), ResultFormat.MAP);
+            fail("Input is overwritten");
+        } catch (IllegalArgumentException expected) {
+            assertEquals("слово сапог", new String(Files.readAllBytes(new File(path).toPath()), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void spilledWords() throws IOException {
+        StringToMapConverter converter = new StringToMapConverter();
+        converter.setSpillDirectory(folder.newFolder().getPath());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ResultWriter writer = new ResultWriter(Channels.newChannel(bytes), ResultFormat.MAP)) {
+            converter.fromFileSpilling(generated, 64 * 1024, writer);
+        }
+        assertEquals(encoded(StringToMapConverter.fromString(line).toString(), "UTF-8"), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unorderedLetters() throws IOException {
+        try (ResultWriter writer = new ResultWriter(Channels.newChannel(new ByteArrayOutputStream()), ResultFormat.MAP)) {
+            writer.accept("б", "бак");
+            writer.accept("а", "арбуз");
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalBufferSize() throws IOException {
+        new ResultWriter(Channels.newChannel(new ByteArrayOutputStream()), ResultFormat.MAP, "UTF-8", 1);
+    }
+
+    private static String writeTo(StringToMapConverter converter, String path, ResultFormat format) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        converter.writeTo(path, Channels.newChannel(bytes), format);
+        return new String(bytes.toByteArray(), Charset.forName(converter.getCharsetName()));
+    }
+
+    private static String format(Map<String, Set<String>> result) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Set<String>> entry : result.entrySet()) {
+            text.append(entry.getKey()).append(':');
+            for (String word : entry.getValue()) text.append(' ').append(word);
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Keys of the first char of 𝔘 are unpaired surrogates, they are replaced by encoding as {@link String#getBytes(Charset)} does.
+     */
+    private static String encoded(String text, String charsetName) {
+        Charset charset = Charset.forName(charsetName);
+        return new String(text.getBytes(charset), charset);
+    }
+}
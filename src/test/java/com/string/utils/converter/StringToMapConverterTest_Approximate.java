@@ -0,0 +1,94 @@
+package com.string.utils.converter;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.*;
+
+import static com.string.utils.converter.WordFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that approximate statistics are within their error bounds.
+ */
+public class StringToMapConverterTest_Approximate {
+
+    private static final String LETTERS = "абвгдежзabcdef";
+    private static final int RANDOM_WORDS = 200_000;
+    private static final int HEAVY_WORD_REPEATS = 3_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<String> words;
+    private static String generated;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        Random random = new Random(37);
+        words = new ArrayList<>();
+        for (int i = 0; i < RANDOM_WORDS; i++) words.add(randomWord(random, LETTERS, 3, 10));
+        // every letter has two heavy hitters, the first one is twice as frequent as the second one
+        for (char letter : LETTERS.toCharArray()) {
+            for (int i = 0; i < HEAVY_WORD_REPEATS; i++) {
+                words.add(letter + "heavy");
+                if (i % 2 == 0) words.add(letter + "hit");
+            }
+        }
+        Collections.shuffle(words, random);
+        generated = write(folder, "approximate.txt", String.join(" ", words), "UTF-8");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalDistinctError() {
+        new SketchOptions(0.0001, 0.001, 0.99, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalConfidence() {
+        new SketchOptions(0.01, 0.001, 1, 10);
+    }
+
+    @Test
+    public void withinErrorBounds() {
+        SketchOptions options = new SketchOptions(0.01, 0.0001, 0.99, 5);
+        WordStatistics statistics = new StringToMapConverter().fromFileApproximate(generated, options);
+        assertEquals(words.size(), statistics.getWords());
+
+        Map<String, Long> counts = new HashMap<>();
+        Map<String, Set<String>> distinct = new HashMap<>();
+        for (String word : words) {
+            String letter = word.substring(0, 1);
+            counts.merge(letter, 1L, Long::sum);
+            distinct.computeIfAbsent(letter, key -> new HashSet<>()).add(word);
+        }
+        assertEquals(distinct.keySet(), statistics.getLetters().keySet());
+        long frequencyError = (long) Math.ceil(options.getFrequencyError() * words.size());
+        for (Map.Entry<String, WordStatistics.Letter> entry : statistics.getLetters().entrySet()) {
+            String letter = entry.getKey();
+            WordStatistics.Letter actual = entry.getValue();
+            assertEquals(letter, (long) counts.get(letter), actual.getWords());
+            // 4 standard errors
+            double expectedDistinct = distinct.get(letter).size();
+            assertEquals(letter, expectedDistinct, actual.getDistinctWords(), expectedDistinct * 4 * options.getDistinctError());
+
+            List<String> top = new ArrayList<>(actual.getTopWords().keySet());
+            assertEquals(letter, Arrays.asList(letter + "heavy", letter + "hit"), top.subList(0, 2));
+            long heavy = actual.getTopWords().get(letter + "heavy");
+            assertTrue(letter, heavy >= HEAVY_WORD_REPEATS && heavy <= HEAVY_WORD_REPEATS + frequencyError);
+        }
+    }
+
+    @Test
+    public void fixedMemory() throws IOException {
+        StringToMapConverter converter = new StringToMapConverter();
+        String small = write(folder, "approximateSmall.txt", String.join(" ", words.subList(0, 1_000)), "UTF-8");
+        WordStatistics smallStatistics = converter.fromFileApproximate(small);
+        WordStatistics statistics = converter.fromFileApproximate(generated);
+        assertEquals(smallStatistics.getLetters().keySet(), statistics.getLetters().keySet());
+        assertEquals(smallStatistics.getSketchBytes(), statistics.getSketchBytes());
+    }
+}
@@ -0,0 +1,115 @@
+package com.string.utils.converter;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.string.utils.converter.WordFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that asynchronous conversion with read-ahead gives the same map as the synchronous one.
+ */
+public class StringToMapConverterTest_Async {
+
+    private static final String LETTERS = "абвгдеёжзabcdef";
+    private static final int WORDS_COUNT = 30_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static ExecutorService executor;
+    private static String line;
+    private static String generatedUtf8;
+    private static String generatedUtf16;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        executor = Executors.newSingleThreadExecutor();
+        line = randomLine(new Random(19), LETTERS, WORDS_COUNT, 10);
+        generatedUtf8 = write(folder, "asyncUtf8.txt", line, "UTF-8");
+        generatedUtf16 = write(folder, "asyncUtf16.txt", line, "UTF-16");
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalDepth() {
+        new StringToMapConverter().fromFileAsync(generatedUtf8, executor, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullExecutor() {
+        new StringToMapConverter().fromFileAsync(generatedUtf8, null, 2);
+    }
+
+    @Test
+    public void sameAsFromFile() throws Exception {
+        Map<String, Set<String>> expected = StringToMapConverter.fromString(line);
+        for (int depth : new int[]{1, 2, 8}) {
+            // small window makes small chunks, so words are split between many chunks
+            StringToMapConverter converter = new StringToMapConverter(64, "UTF-8", 1001);
+            assertEquals("depth " + depth, expected, converter.fromFileAsync(generatedUtf8, executor, depth).get(10, TimeUnit.SECONDS));
+            converter = new StringToMapConverter(64, "UTF-16", 1001);
+            assertEquals("utf-16 depth " + depth, expected, converter.fromFileAsync(generatedUtf16, executor, depth).get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(expected, new StringToMapConverter().fromFileAsync(generatedUtf8).get(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Grouping on the completing thread must not recurse per chunk.
+     */
+    @Test
+    public void callerRunsExecutor() throws Exception {
+        StringToMapConverter converter = new StringToMapConverter(8, "UTF-8", 8);
+        Map<String, Set<String>> result = converter.fromFileAsync(generatedUtf8, Runnable::run, 4).get(10, TimeUnit.SECONDS);
+        assertEquals(StringToMapConverter.fromString(line), result);
+    }
+
+    @Test
+    public void emptyFile() throws Exception {
+        String empty = folder.newFile("asyncEmpty.txt").getPath();
+        assertTrue(new StringToMapConverter().fromFileAsync(empty, executor, 2).get(10, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingFile() {
+        new StringToMapConverter().fromFileAsync(new File(folder.getRoot(), "missing.txt").getPath(), executor, 2);
+    }
+
+    @Test
+    public void unreadableFileCompletesExceptionally() throws InterruptedException, TimeoutException {
+        try {
+            new StringToMapConverter().fromFileAsync(folder.getRoot().getPath(), executor, 2).get(10, TimeUnit.SECONDS);
+            fail("Directory is converted");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().toString(), e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void metrics() throws Exception {
+        AtomicReference<ConversionMetrics> metrics = new AtomicReference<>();
+        StringToMapConverter converter = new StringToMapConverter();
+        converter.setConversionListener(metrics::set);
+        converter.fromFileAsync(generatedUtf8, executor, 2).get(10, TimeUnit.SECONDS);
+        assertEquals(WORDS_COUNT, metrics.get().getWords());
+    }
+}
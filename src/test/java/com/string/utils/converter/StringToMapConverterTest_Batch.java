@@ -0,0 +1,109 @@
+package com.string.utils.converter;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Batch results are compared with {@link StringToMapConverter#fromString(CharSequence)} of the same lines.
+ */
+public class StringToMapConverterTest_Batch {
+
+    private final static String WIN1251 = "Windows-1251";
+    private static final String[] LINES = {
+            "сапог сарай арбуз",
+            "болт бокс биржа",
+            "сапоги строка слово тест",
+            "только привет пока прилет"};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static ForkJoinPool pool;
+    private File directory;
+
+    @BeforeClass
+    public static void setUpPool() {
+        pool = new ForkJoinPool(3);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("lines");
+        for (int i = 0; i < LINES.length; i++) {
+            Files.write(new File(directory, "line" + i + ".txt").toPath(), LINES[i].getBytes(Charset.forName(WIN1251)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullPool() {
+        new StringToMapConverter(8, WIN1251).fromFiles(Collections.singletonList(directory.getPath()), null, null);
+    }
+
+    @Test
+    public void mergedDirectory() {
+        ConcurrentLinkedQueue<String> processed = new ConcurrentLinkedQueue<>();
+        BatchResult result = new StringToMapConverter(8, WIN1251).fromFiles(Collections.singletonList(directory.getPath()), pool,
+                (filePath, error, completed, total) -> {
+                    assertNull(error);
+                    assertEquals(LINES.length, total);
+                    processed.add(filePath);
+                });
+        assertFalse(result.hasErrors());
+        assertTrue(result.getResults().isEmpty());
+        assertEquals(StringToMapConverter.fromString(String.join(" ", LINES)), result.getResult());
+        assertEquals(LINES.length, processed.size());
+    }
+
+    @Test
+    public void eachFileWithError() {
+        List<String> paths = new ArrayList<>();
+        for (int i = LINES.length - 1; i >= 0; i--) paths.add(new File(directory, "line" + i + ".txt").getPath());
+        String missing = new File(directory, "missing.txt").getPath();
+        paths.add(1, missing);
+        int[] completedCount = new int[1];
+        BatchResult result = new StringToMapConverter(8, WIN1251).fromEachFile(paths, pool,
+                (filePath, error, completed, total) -> {
+                    synchronized (completedCount) {
+                        completedCount[0] = Math.max(completedCount[0], completed);
+                    }
+                });
+        assertEquals(LINES.length + 1, completedCount[0]);
+        assertEquals(Collections.singleton(missing), result.getErrors().keySet());
+        assertTrue(result.getErrors().get(missing) instanceof NoSuchFileException);
+        assertTrue(result.getResult().isEmpty());
+        Iterator<Map.Entry<String, Map<String, Set<String>>>> results = result.getResults().entrySet().iterator();
+        for (int i = LINES.length - 1; i >= 0; i--) {
+            Map.Entry<String, Map<String, Set<String>>> byFile = results.next();
+            assertEquals(new File(directory, "line" + i + ".txt").getPath(), byFile.getKey());
+            assertEquals(StringToMapConverter.fromString(LINES[i]), byFile.getValue());
+        }
+    }
+
+    @Test
+    public void sequentialCharset() throws IOException {
+        File utf16 = folder.newFile("utf16.txt");
+        Files.write(utf16.toPath(), String.join(" ", LINES).getBytes(Charset.forName("UTF-16")));
+        BatchResult result = new StringToMapConverter(8, "UTF-16").fromFiles(Collections.singletonList(utf16.getPath()));
+        assertEquals(StringToMapConverter.fromString(String.join(" ", LINES)), result.getResult());
+    }
+}
@@ -0,0 +1,148 @@
+package com.string.utils.converter;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.string.utils.converter.WordFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that every build mode gives the same map with the same ordering as the default one.
+ */
+public class StringToMapConverterTest_BuildModes {
+
+    private final static String WIN1251 = "Windows-1251";
+    private final static String UTF8 = "UTF-8";
+    // "ё" is ordered after other cyrillic letters in strings, but before them in Windows-1251 bytes
+    private static final String LETTERS = "абвгдеёжзиклмнопрстуфхцчшщэюяabcdef";
+    private static final int WORDS_COUNT = 30_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static ForkJoinPool pool;
+    private static String line;
+    private static String generatedWin1251;
+    private static String generatedUtf8;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        line = randomLine(new Random(13), LETTERS, WORDS_COUNT, 8);
+        generatedWin1251 = write(folder, "generated1251.txt", line, WIN1251);
+        generatedUtf8 = write(folder, "generatedUtf8.txt", line, UTF8);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullBuildMode() {
+        new StringToMapConverter().setBuildMode(null);
+    }
+
+    @Test
+    public void sameAsTreeSet() {
+        Map<String, Set<String>> expected = StringToMapConverter.fromString(line);
+        for (BuildMode buildMode : BuildMode.values()) {
+            for (String charsetName : new String[]{WIN1251, UTF8}) {
+                StringToMapConverter converter = new StringToMapConverter(4096, charsetName);
+                converter.setBuildMode(buildMode);
+                String filePath = WIN1251.equals(charsetName) ? generatedWin1251 : generatedUtf8;
+                assertSameOrder(buildMode + " " + charsetName, expected, converter.fromFile(filePath));
+                assertSameOrder(buildMode + " " + charsetName + " parallel", expected, converter.fromFileParallel(filePath, pool));
+            }
+        }
+    }
+
+    @Test
+    public void compactContains() {
+        StringToMapConverter converter = new StringToMapConverter(4096, WIN1251);
+        converter.setBuildMode(BuildMode.COMPACT_OFF_HEAP);
+        Map<String, Set<String>> sorted = converter.fromFile(generatedWin1251);
+        for (Set<String> words : sorted.values()) {
+            for (String word : words) {
+                assertTrue(word, words.contains(word));
+                assertFalse(words.contains(word + "z"));
+            }
+        }
+        assertFalse(sorted.get("а").contains("б"));
+        assertFalse(sorted.get("а").contains(1));
+    }
+
+    @Test
+    public void hashThenSortGivesTreeSets() {
+        StringToMapConverter converter = new StringToMapConverter();
+        converter.setBuildMode(BuildMode.HASH_THEN_SORT);
+        Map<String, Set<String>> sorted = converter.fromFile(generatedUtf8);
+        Set<String> words = sorted.get("а");
+        assertTrue(words instanceof TreeSet);
+        assertTrue(words.add("аааааааааааааааа"));
+        assertEquals("аааааааааааааааа", words.iterator().next());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void compactReadOnlyMap() {
+        StringToMapConverter converter = new StringToMapConverter();
+        converter.setBuildMode(BuildMode.COMPACT);
+        converter.fromFile(generatedUtf8).remove("а");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void compactReadOnlySet() {
+        StringToMapConverter converter = new StringToMapConverter();
+        converter.setBuildMode(BuildMode.COMPACT);
+        converter.fromFile(generatedUtf8).get("а").add("арбуз");
+    }
+
+    @Test
+    public void undefinedByteIsNotReplaced() throws IOException {
+        Charset charset = Charset.forName(WIN1251);
+        int middle = line.indexOf(' ', line.length() / 2) + 1;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(line.substring(0, middle).getBytes(charset));
+        // 0x98 is not defined in Windows-1251 and is decoded as U+FFFD, which can not be encoded back
+        bytes.write("б".getBytes(charset));
+        bytes.write(0x98);
+        bytes.write(" б? ".getBytes(charset));
+        bytes.write(line.substring(middle).getBytes(charset));
+        File file = folder.newFile("undefined1251.txt");
+        Files.write(file.toPath(), bytes.toByteArray());
+        StringToMapConverter converter = new StringToMapConverter(4096, WIN1251);
+        Map<String, Set<String>> expected = converter.fromFile(file.getPath());
+        assertTrue(expected.get("б").contains("б\uFFFD"));
+        assertTrue(expected.get("б").contains("б?"));
+        for (BuildMode buildMode : BuildMode.values()) {
+            converter.setBuildMode(buildMode);
+            assertSameOrder(buildMode.name(), expected, converter.fromFile(file.getPath()));
+            assertSameOrder(buildMode + " parallel", expected, converter.fromFileParallel(file.getPath(), pool));
+        }
+    }
+
+    private static void assertSameOrder(String message, Map<String, Set<String>> expected, Map<String, Set<String>> actual) {
+        assertEquals(message, expected, actual);
+        Iterator<Map.Entry<String, Set<String>>> expectedIterator = expected.entrySet().iterator();
+        for (Map.Entry<String, Set<String>> byFirstLetter : actual.entrySet()) {
+            Map.Entry<String, Set<String>> expectedEntry = expectedIterator.next();
+            assertEquals(message, expectedEntry.getKey(), byFirstLetter.getKey());
+            assertArrayEquals(message, expectedEntry.getValue().toArray(), byFirstLetter.getValue().toArray());
+        }
+    }
+}
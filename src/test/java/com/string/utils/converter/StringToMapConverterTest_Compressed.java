@@ -0,0 +1,132 @@
+package com.string.utils.converter;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static com.string.utils.converter.WordFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks conversion of compressed files without a decompressed copy.
+ */
+public class StringToMapConverterTest_Compressed {
+
+    private static final String LETTERS = "абвгдеёжзabcdef";
+    private static final int WORDS_COUNT = 30_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static String line;
+    private static String gzipped;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        line = randomLine(new Random(29), LETTERS, WORDS_COUNT, 10);
+        File file = folder.newFile("line.txt.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(line.getBytes("UTF-8"));
+        }
+        gzipped = file.getPath();
+    }
+
+    @Test
+    public void gzipSameAsString() throws IOException {
+        Map<String, Set<String>> expected = StringToMapConverter.fromString(line);
+        assertEquals(expected, new StringToMapConverter().fromCompressedFile(gzipped));
+        // chunks of 13 bytes split almost every word
+        assertEquals(expected, new StringToMapConverter(8, "UTF-8", 13).fromCompressedFile(gzipped));
+    }
+
+    @Test
+    public void multiByteCharset() throws IOException {
+        File file = folder.newFile("utf16.txt.gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+            out.write(line.getBytes(Charset.forName("UTF-16")));
+        }
+        assertEquals(StringToMapConverter.fromString(line), new StringToMapConverter(64, "UTF-16", 101).fromCompressedFile(file.getPath()));
+    }
+
+    @Test
+    public void concatenatedMembers() throws IOException {
+        File file = folder.newFile("members.gz");
+        try (OutputStream out = new FileOutputStream(file)) {
+            // the word "абв" is split between members
+            for (String part : new String[]{"слово сап", "оги ав", "то абв"}) {
+                try (GZIPOutputStream member = new GZIPOutputStream(new NonClosingStream(out))) {
+                    member.write(part.getBytes("UTF-8"));
+                }
+            }
+        }
+        assertEquals(StringToMapConverter.fromString("слово сапоги авто абв"), new StringToMapConverter().fromCompressedFile(file.getPath()));
+    }
+
+    @Test
+    public void registeredCodec() throws IOException {
+        File file = folder.newFile("line.zz");
+        try (OutputStream out = new DeflaterOutputStream(new FileOutputStream(file))) {
+            out.write(line.getBytes("UTF-8"));
+        }
+        StringToMapConverter converter = new StringToMapConverter();
+        converter.registerCodec(new DeflateCodec());
+        assertTrue(converter.getCodecs().get(0) instanceof DeflateCodec);
+        assertEquals(StringToMapConverter.fromString(line), converter.fromCompressedFile(file.getPath()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownExtension() throws IOException {
+        new StringToMapConverter().fromCompressedFile(folder.newFile("line.zst").getPath());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalCodec() {
+        new StringToMapConverter().registerCodec(null);
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptedFile() throws IOException {
+        File file = folder.newFile("corrupted.gz");
+        byte[] bytes = Files.readAllBytes(new File(gzipped).toPath());
+        // the end of deflate stream and the trailer are lost
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length / 2));
+        new StringToMapConverter().fromCompressedFile(file.getPath());
+    }
+
+    private static final class DeflateCodec implements CompressionCodec {
+
+        @Override
+        public String extension() {
+            return ".zz";
+        }
+
+        @Override
+        public InputStream decompress(InputStream compressed) {
+            return new InflaterInputStream(compressed);
+        }
+    }
+
+    private static final class NonClosingStream extends FilterOutputStream {
+
+        NonClosingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
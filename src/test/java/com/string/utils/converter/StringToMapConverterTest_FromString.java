@@ -2,12 +2,16 @@ package com.string.utils.converter;
 
 import org.junit.Test;
 
+import java.nio.CharBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import static com.string.utils.converter.StringToMapConverter.fromEachString;
 import static com.string.utils.converter.StringToMapConverter.fromString;
+import static com.string.utils.converter.StringToMapConverter.fromStrings;
 import static org.junit.Assert.*;
 
 /**
@@ -96,6 +100,35 @@ public class StringToMapConverterTest_FromString {
         assertSorted();
     }
 
+    @Test
+    public void charSequence() throws Exception {
+        sorted = fromString(new StringBuilder("сапог\tсарай\r\nарбуз  болт бокс биржа "));
+        assertSorted();
+        sorted = fromString(CharBuffer.wrap("сапог сарай арбуз болт бокс биржа"));
+        assertSorted();
+    }
+
+    @Test
+    public void mergedStrings() throws Exception {
+        sorted = fromStrings(Arrays.asList("сапог арбуз", "", "болт бокс", new StringBuilder("биржа сарай сапог")));
+        assertSorted();
+    }
+
+    @Test
+    public void eachString() throws Exception {
+        List<Map<String, Set<String>>> maps = fromEachString(Arrays.asList("сапог сарай арбуз болт бокс биржа", "", "слово тест"));
+        assertEquals(3, maps.size());
+        sorted = maps.get(0);
+        assertSorted();
+        assertTrue(maps.get(1).isEmpty());
+        assertTrue(maps.get(2).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullInBatch() throws Exception {
+        fromStrings(Arrays.asList("слово", null));
+    }
+
     private void assertSorted() {
         // check single element set removal
         Set<String> wordsByA = sorted.get("a");
@@ -0,0 +1,167 @@
+package com.string.utils.converter;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks grouping keys and that every way of conversion groups words by the set key.
+ */
+public class StringToMapConverterTest_GroupingKey {
+
+    // mathematical fraktur U and V, supplementary characters with the same high surrogate
+    private static final String FRAKTUR_U = "𝔘";
+    private static final String FRAKTUR_V = "𝔙";
+    private static final String[] PARTS = {"а", "б", "Б", "ё", "Ё", "a", "b", "B", "中", "文", FRAKTUR_U, FRAKTUR_V, "😀"};
+    private static final int WORDS_COUNT = 20_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static ForkJoinPool pool;
+    private static String line;
+    private static String generated;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        Random random = new Random(17);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < WORDS_COUNT; i++) {
+            int length = 1 + random.nextInt(5);
+            for (int j = 0; j < length; j++) builder.append(PARTS[random.nextInt(PARTS.length)]);
+            builder.append(' ');
+        }
+        line = builder.toString();
+        File file = folder.newFile("grouping.txt");
+        Files.write(file.toPath(), line.getBytes(StandardCharsets.UTF_8));
+        generated = file.getAbsolutePath();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullGroupingKey() {
+        new StringToMapConverter().setGroupingKey(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalPrefix() {
+        GroupingKey.prefix(0);
+    }
+
+    @Test
+    public void firstCharSplitsSurrogatePair() {
+        Map<String, Set<String>> map = StringToMapConverter.fromString(FRAKTUR_U + "a " + FRAKTUR_V + "b");
+        assertEquals(Collections.singleton(FRAKTUR_U.substring(0, 1)), map.keySet());
+    }
+
+    @Test
+    public void firstCodePoint() {
+        String text = FRAKTUR_U + "a " + FRAKTUR_U + "bc " + FRAKTUR_V + "b";
+        Map<String, Set<String>> map = StringToMapConverter.fromString(text, GroupingKey.firstCodePoint());
+        assertEquals(Collections.singleton(FRAKTUR_U), map.keySet());
+        assertEquals(Arrays.asList(FRAKTUR_U + "bc", FRAKTUR_U + "a"), new ArrayList<>(map.get(FRAKTUR_U)));
+    }
+
+    @Test
+    public void caseFolded() {
+        Map<String, Set<String>> map = StringToMapConverter.fromString("Слово слово сапог Арбуз арка дом", GroupingKey.caseFolded());
+        assertEquals(new TreeSet<>(Arrays.asList("а", "с")), map.keySet());
+        assertEquals(Arrays.asList("Слово", "сапог", "слово"), new ArrayList<>(map.get("с")));
+        assertEquals(Arrays.asList("Арбуз", "арка"), new ArrayList<>(map.get("а")));
+        assertEquals("с", GroupingKey.caseFolded().of("Слово"));
+    }
+
+    @Test
+    public void prefix() {
+        Map<String, Set<String>> map = StringToMapConverter.fromString("сапог сарай сапоги строка с са", GroupingKey.prefix(2));
+        assertEquals(Collections.singleton("са"), map.keySet());
+        assertEquals(Arrays.asList("сапоги", "сапог", "сарай", "са"), new ArrayList<>(map.get("са")));
+        assertEquals(FRAKTUR_U + "a", GroupingKey.prefix(2).of(FRAKTUR_U + "ab"));
+        assertSame(GroupingKey.firstCodePoint(), GroupingKey.prefix(1));
+    }
+
+    @Test
+    public void fileSameAsString() {
+        for (GroupingKey groupingKey : keys()) {
+            Map<String, Set<String>> expected = StringToMapConverter.fromString(line, groupingKey);
+            for (BuildMode buildMode : BuildMode.values()) {
+                StringToMapConverter converter = new StringToMapConverter(4096, "UTF-8");
+                converter.setBuildMode(buildMode);
+                converter.setGroupingKey(groupingKey);
+                String name = groupingKey + " " + buildMode;
+                assertSameOrder(name, expected, converter.fromFile(generated));
+                assertSameOrder(name + " parallel", expected, converter.fromFileParallel(generated, pool));
+            }
+        }
+    }
+
+    @Test
+    public void topAndSpillingSameAsString() {
+        for (GroupingKey groupingKey : keys()) {
+            Map<String, Set<String>> expected = StringToMapConverter.fromString(line, groupingKey);
+            StringToMapConverter converter = new StringToMapConverter(4096, "UTF-8");
+            converter.setGroupingKey(groupingKey);
+            converter.setSpillDirectory(folder.getRoot().getPath());
+            assertSameOrder(groupingKey + " spilling", expected, converter.fromFileSpilling(generated, 64 * 1024));
+
+            converter = new StringToMapConverter(4096, "UTF-8");
+            converter.setGroupingKey(groupingKey);
+            converter.setTopK(2);
+            Map<String, Set<String>> top = converter.fromFile(generated);
+            assertEquals(groupingKey + " top keys", expected.keySet(), top.keySet());
+            for (Map.Entry<String, Set<String>> entry : top.entrySet()) {
+                List<String> expectedWords = new ArrayList<>(expected.get(entry.getKey())).subList(0, 2);
+                assertEquals(groupingKey + " top " + entry.getKey(), expectedWords, new ArrayList<>(entry.getValue()));
+            }
+        }
+    }
+
+    @Test
+    public void keyTableSameAsMap() {
+        Random random = new Random(3);
+        for (GroupingKey groupingKey : keys()) {
+            KeyTable<Integer> table = groupingKey.newTable();
+            Map<String, Integer> expected = new HashMap<>();
+            for (int i = 0; i < 5_000; i++) {
+                // latin, cyrillic, CJK and supplementary code points make both dense and sparse keys
+                int[] ranges = {'a', 'а', 0x4E00, 0x1F600, 0x1D518};
+                int codePoint = ranges[random.nextInt(ranges.length)] + random.nextInt(64);
+                String word = new String(Character.toChars(codePoint)) + "x";
+                char[] chars = ("  " + word).toCharArray();
+                Integer value = table.get(chars, 2, word.length());
+                assertEquals(word, expected.get(groupingKey.of(word)), value);
+                table.put(chars, 2, word.length(), i);
+                expected.put(groupingKey.of(word), i);
+                assertEquals(Integer.valueOf(i), table.get(word));
+            }
+            assertEquals(groupingKey.toString(), new TreeMap<>(expected), table.sorted());
+        }
+    }
+
+    private static List<GroupingKey> keys() {
+        return Arrays.asList(GroupingKey.firstChar(), GroupingKey.firstCodePoint(), GroupingKey.caseFolded(), GroupingKey.prefix(2));
+    }
+
+    private static void assertSameOrder(String message, Map<String, Set<String>> expected, Map<String, Set<String>> actual) {
+        assertEquals(message, new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+        for (Map.Entry<String, Set<String>> entry : expected.entrySet()) {
+            assertEquals(message + " " + entry.getKey(), new ArrayList<>(entry.getValue()), new ArrayList<>(actual.get(entry.getKey())));
+        }
+    }
+}
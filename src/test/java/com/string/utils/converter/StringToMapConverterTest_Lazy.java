@@ -0,0 +1,118 @@
+package com.string.utils.converter;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.*;
+
+import static com.string.utils.converter.WordFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that lazy map is equal to the eager one and builds sets only on access.
+ */
+public class StringToMapConverterTest_Lazy {
+
+    private static final String LETTERS = "абвгдеёжзabcdefЖ𝔘";
+    private static final int WORDS_COUNT = 30_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static String line;
+    private static String generatedUtf8;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        // tabs and line feeds are whitespaces too
+        line = randomLine(new Random(23), LETTERS, WORDS_COUNT, 10, i -> i % 100 == 0 ? "\t\n" : " ");
+        generatedUtf8 = write(folder, "lazyUtf8.txt", line, "UTF-8");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegalCharset() throws IOException {
+        String utf16 = write(folder, "lazyUtf16.txt", "aa ab", "UTF-16");
+        new StringToMapConverter(8192, "UTF-16").fromFileLazy(utf16);
+    }
+
+    @Test
+    public void sameAsFromFile() throws IOException {
+        for (GroupingKey groupingKey : Arrays.asList(GroupingKey.firstChar(), GroupingKey.firstCodePoint(),
+                GroupingKey.caseFolded(), GroupingKey.prefix(2))) {
+            // small window and buffer split words between chunks and windows
+            StringToMapConverter converter = new StringToMapConverter(64, "UTF-8", 1001);
+            converter.setGroupingKey(groupingKey);
+            try (LazyWordMap lazy = converter.fromFileLazy(generatedUtf8)) {
+                Map<String, Set<String>> expected = converter.fromFile(generatedUtf8);
+                assertEquals(groupingKey.toString(), new ArrayList<>(expected.keySet()), new ArrayList<>(lazy.keySet()));
+                for (Map.Entry<String, Set<String>> entry : expected.entrySet()) {
+                    assertEquals(groupingKey + " " + entry.getKey(), new ArrayList<>(entry.getValue()), new ArrayList<>(lazy.get(entry.getKey())));
+                }
+                assertEquals(expected, lazy);
+            }
+        }
+    }
+
+    @Test
+    public void singleByteCharset() throws IOException {
+        String text = "слово сапог слон арбуз ёж ель ёлка дом";
+        String path = write(folder, "lazy1251.txt", text, "Windows-1251");
+        try (LazyWordMap lazy = new StringToMapConverter(8192, "Windows-1251").fromFileLazy(path)) {
+            assertEquals(StringToMapConverter.fromString(text), lazy);
+        }
+    }
+
+    @Test
+    public void setsAreBuiltOnAccess() throws IOException {
+        try (LazyWordMap lazy = new StringToMapConverter().fromFileLazy(generatedUtf8)) {
+            assertTrue(lazy.containsKey("а"));
+            assertFalse(lazy.isMaterialized("а"));
+            assertFalse(lazy.isMaterialized("б"));
+            Set<String> words = lazy.get("а");
+            assertTrue(lazy.isMaterialized("а"));
+            assertFalse(lazy.isMaterialized("б"));
+            assertSame(words, lazy.get("а"));
+        }
+    }
+
+    @Test
+    public void repeatedWordIsPruned() throws IOException {
+        String path = write(folder, "lazyRepeats.txt", "aa aa aa bb bc cc cc", "UTF-8");
+        try (LazyWordMap lazy = new StringToMapConverter().fromFileLazy(path)) {
+            assertEquals(Collections.singleton("b"), lazy.keySet());
+            assertEquals(Arrays.asList("bb", "bc"), new ArrayList<>(lazy.get("b")));
+            assertNull(lazy.get("a"));
+        }
+    }
+
+    @Test
+    public void sameHashesAreCompared() throws IOException {
+        // "Aa" and "BB" have the same length and hash of bytes, long words are not copied by the first pass
+        String longWord = String.join("", Collections.nCopies(100, "l"));
+        String text = "xAa xBB xAa yAa yAa " + longWord + "Aa " + longWord + "BB z" + longWord + " z" + longWord;
+        String path = write(folder, "lazyHashes.txt", text, "UTF-8");
+        try (LazyWordMap lazy = new StringToMapConverter(64, "UTF-8").fromFileLazy(path)) {
+            assertEquals(Arrays.asList("l", "x"), new ArrayList<>(lazy.keySet()));
+            assertEquals(Arrays.asList("xAa", "xBB"), new ArrayList<>(lazy.get("x")));
+            assertEquals(Arrays.asList(longWord + "Aa", longWord + "BB"), new ArrayList<>(lazy.get("l")));
+        }
+    }
+
+    @Test
+    public void builtSetsAreAccessibleAfterClose() throws IOException {
+        String path = write(folder, "lazyClosed.txt", "aa ab bb bc", "UTF-8");
+        LazyWordMap lazy = new StringToMapConverter().fromFileLazy(path);
+        Set<String> words = lazy.get("a");
+        lazy.close();
+        assertEquals(words, lazy.get("a"));
+        try {
+            lazy.get("b");
+            fail("Set is built after close");
+        } catch (IllegalStateException expected) {
+            // file is closed
+        }
+    }
+}
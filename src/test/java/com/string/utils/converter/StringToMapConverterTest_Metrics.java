@@ -0,0 +1,108 @@
+package com.string.utils.converter;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Metrics of sequential and parallel conversions are compared with words counted in the test.
+ */
+public class StringToMapConverterTest_Metrics {
+
+    private final static String WIN1251 = "Windows-1251";
+    private static final String LETTERS = "абвгдеёжзиклмнопрстуфхцчшщэюя";
+    private static final int WORDS_COUNT = 30_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static ForkJoinPool pool;
+    private static File generated;
+    private static Set<String> distinct = new HashSet<>();
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        Random random = new Random(23);
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < WORDS_COUNT; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int j = random.nextInt(4); j >= 0; j--) word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            distinct.add(word.toString());
+            line.append(word).append(' ');
+        }
+        generated = folder.newFile("generated.txt");
+        Files.write(generated.toPath(), line.toString().getBytes(Charset.forName(WIN1251)));
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void disabledByDefault() {
+        assertNull(new StringToMapConverter().getConversionListener());
+    }
+
+    @Test
+    public void sequentialAndParallel() {
+        ConversionMetricsRecorder recorder = new ConversionMetricsRecorder();
+        for (BuildMode buildMode : BuildMode.values()) {
+            StringToMapConverter converter = new StringToMapConverter(64, WIN1251);
+            converter.setBuildMode(buildMode);
+            converter.setConversionListener(recorder);
+            assertMetrics(buildMode.name(), converter.fromFile(generated.getPath()), recorder.last());
+            assertMetrics(buildMode + " parallel", converter.fromFileParallel(generated.getPath(), pool), recorder.last());
+            assertTrue(recorder.last().getPhaseNanos().containsKey(ConversionPhase.GROUP));
+            assertTrue(recorder.last().getPhaseNanos().containsKey(ConversionPhase.INSERT));
+        }
+        assertEquals(BuildMode.values().length * 2, recorder.getRecords().size());
+    }
+
+    @Test
+    public void recorderCapacity() {
+        ConversionMetricsRecorder recorder = new ConversionMetricsRecorder(2);
+        StringToMapConverter converter = new StringToMapConverter(4096, WIN1251);
+        converter.setConversionListener(recorder);
+        for (int i = 0; i < 3; i++) converter.fromFile(generated.getPath());
+        assertEquals(2, recorder.getRecords().size());
+        converter.setConversionListener(null);
+        recorder.clear();
+        converter.fromFile(generated.getPath());
+        assertNull(recorder.last());
+    }
+
+    private static void assertMetrics(String message, Map<String, Set<String>> result, ConversionMetrics metrics) {
+        assertEquals(message, generated.getPath(), metrics.getSource());
+        assertEquals(message, generated.length(), metrics.getBytes());
+        assertEquals(message, WORDS_COUNT, metrics.getWords());
+        assertEquals(message, distinct.size(), metrics.getDistinctWords());
+        assertEquals(message, 1 - distinct.size() / (double) WORDS_COUNT, metrics.getDuplicateRatio(), 1e-9);
+        assertTrue(message, metrics.getPeakHeldWords() >= distinct.size());
+        assertEquals(message, result.keySet(), metrics.getWordsPerLetter().keySet());
+        result.forEach((letter, words) -> assertEquals(message, words.size(), (int) metrics.getWordsPerLetter().get(letter)));
+        assertTrue(message, metrics.getTotalNanos() > 0);
+        assertTrue(message, metrics.getBytesPerSecond() > 0);
+        assertTrue(message, metrics.getWordsPerSecond() > 0);
+        long phases = 0;
+        for (Map.Entry<ConversionPhase, Long> phase : metrics.getPhaseNanos().entrySet()) {
+            assertTrue(message, phase.getValue() >= 0);
+            // insertion is a part of grouping
+            if (phase.getKey() != ConversionPhase.INSERT) phases += phase.getValue();
+        }
+        assertTrue(message, phases <= metrics.getTotalNanos());
+        assertTrue(message, metrics.getPhaseNanos().containsKey(ConversionPhase.RESULT));
+    }
+}
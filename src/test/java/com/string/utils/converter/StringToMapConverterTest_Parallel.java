@@ -0,0 +1,109 @@
+package com.string.utils.converter;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.string.utils.converter.WordFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that parallel mode gives exactly the same result as sequential one.
+ * Test file is generated with fixed seed, so the test is reproducible.
+ */
+public class StringToMapConverterTest_Parallel {
+
+    private final static String WIN1251 = "Windows-1251";
+    private final static String UTF8 = "UTF-8";
+    private static final String LETTERS = "абвгдежзиклмнопрстуфхцчшщэюяabcdef";
+    private static final int WORDS_COUNT = 50_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static ForkJoinPool pool;
+    private static String generatedWin1251;
+    private static String generatedUtf8;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        String line = randomLine(new Random(42), LETTERS, WORDS_COUNT, 10);
+        generatedWin1251 = write(folder, "generated1251.txt", line, WIN1251);
+        generatedUtf8 = write(folder, "generatedUtf8.txt", line, UTF8);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullPool() {
+        new StringToMapConverter().fromFileParallel(generatedUtf8, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidFilePath() {
+        new StringToMapConverter().fromFileParallel("", pool);
+    }
+
+    @Test
+    public void sameAsSequentialSingleByteCharset() {
+        assertSameAsSequential(new StringToMapConverter(8192, WIN1251), generatedWin1251);
+        assertSameAsSequential(new StringToMapConverter(100_000, WIN1251), generatedWin1251);
+    }
+
+    @Test
+    public void sameAsSequentialUtf8() {
+        // odd buffer size cuts multi byte characters in sequential path
+        assertSameAsSequential(new StringToMapConverter(8191, UTF8), generatedUtf8);
+        assertSameAsSequential(new StringToMapConverter(10 * 1024 * 1024, UTF8), generatedUtf8);
+    }
+
+    @Test
+    public void testFile() throws URISyntaxException {
+        String filePath = Paths.get(getClass().getResource("/testFile.txt").toURI()).toString();
+        Map<String, Set<String>> sorted = new StringToMapConverter(8, WIN1251).fromFileParallel(filePath, pool);
+
+        Iterator<Map.Entry<String, Set<String>>> firstLetterIterator = sorted.entrySet().iterator();
+        assertEquals("б", firstLetterIterator.next().getKey());
+        assertEquals("п", firstLetterIterator.next().getKey());
+        assertEquals("с", firstLetterIterator.next().getKey());
+        assertEquals("т", firstLetterIterator.next().getKey());
+        assertFalse(firstLetterIterator.hasNext());
+
+        Iterator<String> iteratorByC = sorted.get("с").iterator();
+        assertEquals("сапоги", iteratorByC.next());
+        assertEquals("строка", iteratorByC.next());
+        assertEquals("сапог", iteratorByC.next());
+        assertEquals("сараи", iteratorByC.next());
+        assertEquals("сарай", iteratorByC.next());
+        assertEquals("слово", iteratorByC.next());
+    }
+
+    private void assertSameAsSequential(StringToMapConverter converter, String filePath) {
+        Map<String, Set<String>> sequential = converter.fromFile(filePath);
+        Map<String, Set<String>> parallel = converter.fromFileParallel(filePath, pool);
+        assertFalse(sequential.isEmpty());
+        assertEquals(sequential, parallel);
+        // equals() of sets does not check ordering
+        Iterator<Map.Entry<String, Set<String>>> sequentialIterator = sequential.entrySet().iterator();
+        for (Map.Entry<String, Set<String>> byFirstLetter : parallel.entrySet()) {
+            Map.Entry<String, Set<String>> expected = sequentialIterator.next();
+            assertEquals(expected.getKey(), byFirstLetter.getKey());
+            assertArrayEquals(expected.getValue().toArray(), byFirstLetter.getValue().toArray());
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.string.utils.converter;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+import static com.string.utils.converter.WordFixtures.*;
+import static org.junit.Assert.*;
+
+/**
+ * Spilling mode is run with tiny budgets, so many run files are written and merged.
+ * Results are compared with {@link StringToMapConverter#fromString(CharSequence)}.
+ */
+public class StringToMapConverterTest_Spilling {
+
+    private final static String WIN1251 = "Windows-1251";
+    private static final String LETTERS = "абвгдеёжзиклмнопрстуфхцчшщэюяabcdefz";
+    private static final int WORDS_COUNT = 20_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static String line;
+    private static String generated;
+    private static File spillDirectory;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        StringBuilder builder = new StringBuilder(randomLine(new Random(7), LETTERS, WORDS_COUNT, 6));
+        // letter with a single word, which is repeated in several runs
+        for (int i = 0; i < 10; i++) builder.append("я ");
+        line = builder.toString().replace('я', 'ю') + "яяя";
+        generated = write(folder, "generated.txt", line, WIN1251);
+        spillDirectory = folder.newFolder("runs");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBudget() {
+        new StringToMapConverter().fromFileSpilling(generated, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSpillDirectory() {
+        new StringToMapConverter().setSpillDirectory(generated);
+    }
+
+    @Test
+    public void sameAsInMemory() {
+        Map<String, Set<String>> expected = StringToMapConverter.fromString(line);
+        assertFalse(expected.containsKey("я"));
+        for (long budget : new long[]{1, 1000, 100_000, Long.MAX_VALUE}) {
+            StringToMapConverter converter = new StringToMapConverter(64, WIN1251);
+            converter.setSpillDirectory(spillDirectory.getPath());
+            Map<String, Set<String>> sorted = converter.fromFileSpilling(generated, budget);
+            assertEquals(expected, sorted);
+            Iterator<Set<String>> expectedSets = expected.values().iterator();
+            for (Set<String> words : sorted.values()) {
+                assertArrayEquals(expectedSets.next().toArray(), words.toArray());
+            }
+            assertEquals("run files are not deleted", 0, spillDirectory.list().length);
+        }
+    }
+
+    @Test
+    public void mergedCollectors() {
+        SpillingCollector first = new SpillingCollector(4 * 1024, spillDirectory.toPath(), GroupingKey.firstChar());
+        SpillingCollector second = new SpillingCollector(4 * 1024, spillDirectory.toPath(), GroupingKey.firstChar());
+        String[] words = line.split(" ");
+        for (int i = 0; i < words.length; i++) {
+            char[] chars = words[i].toCharArray();
+            // the same words go into both collectors
+            (i % 3 == 0 ? first : second).accept(chars, 0, chars.length);
+            if (i % 7 == 0) first.accept(chars, 0, chars.length);
+        }
+        first.merge(second);
+        assertEquals(StringToMapConverter.fromString(line), first.result());
+        assertEquals(0, first.runsCount());
+    }
+
+    @Test
+    public void streamed() throws IOException {
+        List<String> expected = new ArrayList<>();
+        for (Map.Entry<String, Set<String>> byFirstLetter : StringToMapConverter.fromString(line).entrySet()) {
+            for (String word : byFirstLetter.getValue()) expected.add(byFirstLetter.getKey() + ":" + word);
+        }
+        List<String> streamed = new ArrayList<>();
+        StringToMapConverter converter = new StringToMapConverter(64, WIN1251);
+        converter.setSpillDirectory(spillDirectory.getPath());
+        converter.fromFileSpilling(generated, 2000, (firstLetter, word) -> streamed.add(firstLetter + ":" + word));
+        assertEquals(expected, streamed);
+        assertEquals(0, spillDirectory.list().length);
+    }
+
+    @Test
+    public void runsAreDeletedOnConsumerError() {
+        StringToMapConverter converter = new StringToMapConverter(64, WIN1251);
+        converter.setSpillDirectory(spillDirectory.getPath());
+        try {
+            converter.fromFileSpilling(generated, 2000, (firstLetter, word) -> {
+                throw new IOException("consumer failed");
+            });
+            fail();
+        } catch (IOException e) {
+            assertEquals("consumer failed", e.getMessage());
+        }
+        assertEquals(0, spillDirectory.list().length);
+    }
+}
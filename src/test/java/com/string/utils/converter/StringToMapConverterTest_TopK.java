@@ -0,0 +1,89 @@
+package com.string.utils.converter;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Top K mode is compared with the first K words of every set of {@link StringToMapConverter#fromString(CharSequence)}.
+ */
+public class StringToMapConverterTest_TopK {
+
+    private final static String WIN1251 = "Windows-1251";
+    private static final String LETTERS = "абвгдеёжзиклмнопрстуфхцчшщэюяabcdef";
+    private static final int WORDS_COUNT = 20_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static ForkJoinPool pool;
+    private static String line;
+    private static String generated;
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        pool = new ForkJoinPool(4);
+        Random random = new Random(11);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < WORDS_COUNT; i++) {
+            int length = 1 + random.nextInt(10);
+            for (int j = 0; j < length; j++) builder.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            builder.append(' ');
+        }
+        // letter with a single repeated word and letter with two words
+        line = builder.toString().replace('z', 'y') + "zz zz zz x xx";
+        File file = folder.newFile("generated.txt");
+        Files.write(file.toPath(), line.getBytes(Charset.forName(WIN1251)));
+        generated = file.getPath();
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeTopK() {
+        new StringToMapConverter().setTopK(-1);
+    }
+
+    @Test
+    public void firstWords() {
+        Map<String, Set<String>> all = StringToMapConverter.fromString(line);
+        for (int k : new int[]{1, 2, 3, 10, 100_000}) {
+            Map<String, List<String>> expected = new TreeMap<>();
+            all.forEach((letter, words) -> expected.put(letter, new ArrayList<>(words).subList(0, Math.min(k, words.size()))));
+            StringToMapConverter converter = new StringToMapConverter(64, WIN1251);
+            converter.setTopK(k);
+            assertTop("k = " + k, expected, converter.fromFile(generated));
+            assertTop("k = " + k + " parallel", expected, converter.fromFileParallel(generated, pool));
+        }
+    }
+
+    @Test
+    public void singleWordLetters() {
+        StringToMapConverter converter = new StringToMapConverter(64, WIN1251);
+        converter.setTopK(1);
+        Map<String, Set<String>> sorted = converter.fromFile(generated);
+        assertFalse(sorted.containsKey("z"));
+        assertEquals(Collections.singleton("xx"), sorted.get("x"));
+    }
+
+    private static void assertTop(String message, Map<String, List<String>> expected, Map<String, Set<String>> actual) {
+        assertEquals(message, expected.keySet(), actual.keySet());
+        for (Map.Entry<String, Set<String>> byFirstLetter : actual.entrySet()) {
+            assertEquals(message, expected.get(byFirstLetter.getKey()), new ArrayList<>(byFirstLetter.getValue()));
+        }
+    }
+}
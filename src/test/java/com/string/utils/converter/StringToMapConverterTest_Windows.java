@@ -0,0 +1,149 @@
+package com.string.utils.converter;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks processing of a file mapped by windows.
+ * Files bigger than 4Gb are converted on every run as sparse files.
+ * Test on a generated file bigger than 4Gb, which is written to disk, takes minutes, so it runs only with -DhugeFiles=true.
+ */
+public class StringToMapConverterTest_Windows {
+
+    private static final long FOUR_GB = 4L * 1024 * 1024 * 1024;
+    private static final String LETTERS = "abcdefghij";
+    /**
+     * Holes of a sparse file are read as NUL bytes, which are not whitespaces, so spaces are written with this step
+     * to keep words of NUL chars short.
+     */
+    private static final int SPACES_STEP = 16 * 1024 * 1024;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidWindowSize() {
+        new StringToMapConverter(8, "UTF-8", 0);
+    }
+
+    @Test
+    public void smallWindowsSameAsSingleWindow() throws IOException {
+        File file = folder.newFile("small.txt");
+        StringBuilder line = new StringBuilder();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            int length = 1 + random.nextInt(12);
+            for (int j = 0; j < length; j++) line.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            line.append(' ');
+        }
+        Files.write(file.toPath(), line.toString().getBytes(StandardCharsets.UTF_8));
+
+        Map<String, Set<String>> expected = StringToMapConverter.fromString(line.toString());
+        // window is not a multiple of buffer, so chunks are cut by windows ends as well
+        assertEquals(expected, new StringToMapConverter(300, "UTF-8", 1001).fromFile(file.getPath()));
+        assertEquals(expected, new StringToMapConverter(8, "UTF-8", 13).fromFile(file.getPath()));
+        assertEquals(expected, new StringToMapConverter(8192, "UTF-8", 8).fromFile(file.getPath()));
+    }
+
+    /**
+     * Sparse file takes no disk space, so windows beyond 4Gb offset are checked on every run.
+     */
+    @Test
+    public void sparseFileBiggerThanFourGb() throws IOException {
+        File file = folder.newFile("sparse.txt");
+        byte[] words = "first second".getBytes(StandardCharsets.UTF_8);
+        // words are placed over the 4Gb border, which is also a windows border
+        long wordsPosition = FOUR_GB - 5;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"); FileChannel channel = randomAccessFile.getChannel()) {
+            randomAccessFile.setLength(FOUR_GB + 1024);
+            channel.write(ByteBuffer.wrap(words), wordsPosition);
+
+            byte[] read = new byte[words.length];
+            int readCount = 0;
+            int windowsCount = 0;
+            try (MappedWindows windows = new MappedWindows(channel, FOUR_GB - 1024, channel.size(), 1024)) {
+                while (windows.hasNext()) {
+                    MappedByteBuffer window = windows.next();
+                    windowsCount++;
+                    for (int i = 0; window.hasRemaining(); i++) {
+                        byte value = window.get();
+                        long position = FOUR_GB - 1024 + (windowsCount - 1) * 1024L + i;
+                        if (position >= wordsPosition && position < wordsPosition + words.length) read[readCount++] = value;
+                    }
+                }
+            }
+            assertEquals(2, windowsCount);
+            assertArrayEquals(words, read);
+        }
+    }
+
+    /**
+     * The whole conversion of a file bigger than 4Gb, which takes almost no disk space.
+     * Words are placed over the 2Gb and 4Gb borders of the default windows and at the very end of the file.
+     */
+    @Test
+    public void sparseFileBiggerThanFourGbConversion() throws IOException {
+        File file = folder.newFile("sparseWords.txt");
+        long size = FOUR_GB + SPACES_STEP;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"); FileChannel channel = randomAccessFile.getChannel()) {
+            randomAccessFile.setLength(size);
+            for (long position = SPACES_STEP - 1; position < size; position += SPACES_STEP) channel.write(ByteBuffer.wrap(new byte[]{' '}), position);
+            writeAt(channel, " alpha alpine ", FOUR_GB / 2 - 7);
+            writeAt(channel, " beta betta ", FOUR_GB - 6);
+            // the last word is not followed by a whitespace
+            writeAt(channel, " zeta zero", size - 10);
+        }
+
+        Map<String, Set<String>> sorted = new StringToMapConverter().fromFile(file.getPath());
+        // words of NUL chars between the spaces
+        sorted.remove("\u0000");
+        assertEquals(Arrays.asList("a", "b", "z"), Arrays.asList(sorted.keySet().toArray()));
+        assertArrayEquals(new String[]{"alpine", "alpha"}, sorted.get("a").toArray());
+        assertArrayEquals(new String[]{"betta", "beta"}, sorted.get("b").toArray());
+        assertArrayEquals(new String[]{"zero", "zeta"}, sorted.get("z").toArray());
+    }
+
+    @Test
+    public void generatedFileBiggerThanFourGb() throws IOException {
+        assumeTrue(Boolean.getBoolean("hugeFiles"));
+        File file = folder.newFile("huge.txt");
+        byte[] block = "alpha beta gamma delta alpine betta gamut delta ".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(block.length * 100_000);
+        while (buffer.remaining() >= block.length) buffer.put(block);
+        buffer.flip();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw"); FileChannel channel = randomAccessFile.getChannel()) {
+            while (channel.size() <= FOUR_GB) {
+                buffer.rewind();
+                while (buffer.hasRemaining()) channel.write(buffer);
+            }
+            // words which appear only beyond 4Gb
+            channel.write(ByteBuffer.wrap("zeta zero".getBytes(StandardCharsets.UTF_8)));
+        }
+
+        Map<String, Set<String>> sorted = new StringToMapConverter().fromFile(file.getPath());
+        assertEquals(Arrays.asList("a", "b", "g", "z"), Arrays.asList(sorted.keySet().toArray()));
+        assertArrayEquals(new String[]{"alpine", "alpha"}, sorted.get("a").toArray());
+        assertArrayEquals(new String[]{"zero", "zeta"}, sorted.get("z").toArray());
+    }
+
+    private static void writeAt(FileChannel channel, String text, long position) throws IOException {
+        channel.write(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), position);
+    }
+}
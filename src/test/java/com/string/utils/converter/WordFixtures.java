@@ -0,0 +1,64 @@
+package com.string.utils.converter;
+
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+/**
+ * Generated input of conversion tests: lines of random words and files of them in a temporary folder.
+ * Words are generated by the passed random, so tests with a fixed seed are reproducible.
+ */
+final class WordFixtures {
+
+    private WordFixtures() {
+    }
+
+    /**
+     * Line of words of 1 to max length code points of the letters, every word is followed by a space.
+     */
+    static String randomLine(Random random, String letters, int wordsCount, int maxLength) {
+        return randomLine(random, letters, wordsCount, maxLength, i -> " ");
+    }
+
+    /**
+     * The same as {@link #randomLine(Random, String, int, int)}, but the separator after the word of the passed index
+     * is returned by the function, e.g. to mix whitespaces or to leave the last word without a separator.
+     */
+    static String randomLine(Random random, String letters, int wordsCount, int maxLength, IntFunction<String> separators) {
+        int[] codePoints = letters.codePoints().toArray();
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < wordsCount; i++) {
+            appendWord(line, random, codePoints, 1, maxLength);
+            line.append(separators.apply(i));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Word of min to max length code points of the letters.
+     */
+    static String randomWord(Random random, String letters, int minLength, int maxLength) {
+        StringBuilder word = new StringBuilder();
+        appendWord(word, random, letters.codePoints().toArray(), minLength, maxLength);
+        return word.toString();
+    }
+
+    /**
+     * Writes the content into a new file of the folder, returns its path.
+     */
+    static String write(TemporaryFolder folder, String name, String content, String charsetName) throws IOException {
+        File file = folder.newFile(name);
+        Files.write(file.toPath(), content.getBytes(Charset.forName(charsetName)));
+        return file.getPath();
+    }
+
+    private static void appendWord(StringBuilder builder, Random random, int[] codePoints, int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        for (int j = 0; j < length; j++) builder.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+    }
+}
@@ -0,0 +1,162 @@
+package com.string.utils.converter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class WordIndexTest {
+
+    private final static String WIN1251 = "Windows-1251";
+    private static final String LINE = "сапог сарай арбуз болт бокс биржа сапоги строка слово тест только привет пока прилет";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeAndRead() throws IOException {
+        Map<String, Set<String>> result = StringToMapConverter.fromString(LINE);
+        Path index = folder.newFile("result.index").toPath();
+        WordIndexWriter.write(result, index);
+        try (WordIndexReader reader = new WordIndexReader(index)) {
+            assertEquals(result.keySet(), reader.letters());
+            for (Map.Entry<String, Set<String>> byFirstLetter : result.entrySet()) {
+                assertEquals(new ArrayList<>(byFirstLetter.getValue()), reader.words(byFirstLetter.getKey()));
+                assertEquals(byFirstLetter.getValue().size(), reader.size(byFirstLetter.getKey()));
+            }
+            assertEquals(Arrays.asList("сапоги", "строка"), reader.top("с", 2));
+            assertEquals(Arrays.asList("биржа", "бокс", "болт"), reader.top("б", 10));
+            assertTrue(reader.contains("сарай"));
+            assertTrue(reader.contains("прилет"));
+            assertFalse(reader.contains("сар"));
+            assertFalse(reader.contains("арбуз"));
+            assertTrue(reader.contains("тест"));
+            assertFalse(reader.contains("тесто"));
+            assertTrue(reader.words("х").isEmpty());
+        }
+    }
+
+    @Test
+    public void emptyResult() throws IOException {
+        Path index = folder.newFile("empty.index").toPath();
+        WordIndexWriter.write(new TreeMap<>(), index);
+        try (WordIndexReader reader = new WordIndexReader(index)) {
+            assertTrue(reader.letters().isEmpty());
+            assertFalse(reader.contains("слово"));
+        }
+    }
+
+    @Test
+    public void streamedFromSpilling() throws IOException {
+        File file = folder.newFile("line.txt");
+        Files.write(file.toPath(), LINE.getBytes(Charset.forName(WIN1251)));
+        StringToMapConverter converter = new StringToMapConverter(8, WIN1251);
+        Path index = folder.newFile("spilled.index").toPath();
+        try (WordIndexWriter writer = new WordIndexWriter(index)) {
+            converter.fromFileSpilling(file.getPath(), 1, writer);
+        }
+        try (WordIndexReader reader = new WordIndexReader(index)) {
+            Map<String, Set<String>> read = new TreeMap<>();
+            for (String letter : reader.letters()) read.put(letter, new TreeSet<>(reader.words(letter)));
+            assertEquals(StringToMapConverter.fromString(LINE), read);
+        }
+    }
+
+    @Test
+    public void supplementaryInitial() throws IOException {
+        // key of the first char of 𝔘 is an unpaired surrogate, it must not collide with the real "?" letter
+        Map<String, Set<String>> result = StringToMapConverter.fromString("𝔘ab 𝔘cd ?a ?b");
+        Path index = folder.newFile("supplementary.index").toPath();
+        WordIndexWriter.write(result, index);
+        try (WordIndexReader reader = new WordIndexReader(index)) {
+            assertEquals(result.keySet(), reader.letters());
+            assertEquals(Arrays.asList("𝔘ab", "𝔘cd"), reader.words("\ud835"));
+            assertEquals(Arrays.asList("?a", "?b"), reader.words("?"));
+            assertTrue(reader.contains("𝔘cd"));
+            assertFalse(reader.contains("𝔘ef"));
+        }
+    }
+
+    @Test
+    public void viewsAfterClose() throws IOException {
+        Path index = folder.newFile("closed.index").toPath();
+        WordIndexWriter.write(StringToMapConverter.fromString(LINE), index);
+        WordIndexReader reader = new WordIndexReader(index);
+        List<String> words = reader.words("с");
+        assertEquals("сапоги", words.get(0));
+        reader.close();
+        try {
+            words.get(0);
+            fail("Word is read after close");
+        } catch (IllegalStateException expected) {
+            // mapping is not read after close
+        }
+        try {
+            reader.contains("сарай");
+            fail("Word is searched after close");
+        } catch (IllegalStateException expected) {
+            // mapping is not read after close
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unorderedLetters() throws IOException {
+        try (WordIndexWriter writer = new WordIndexWriter(folder.newFile("unordered.index").toPath())) {
+            writer.accept("с", "слово");
+            writer.accept("б", "болт");
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void incompleteFile() throws IOException {
+        Path index = folder.newFile("incomplete.index").toPath();
+        WordIndexWriter.write(StringToMapConverter.fromString(LINE), index);
+        byte[] bytes = Files.readAllBytes(index);
+        Files.write(index, Arrays.copyOf(bytes, bytes.length - 1));
+        new WordIndexReader(index).close();
+    }
+
+    @Test
+    public void corruptedFooter() throws IOException {
+        Path index = folder.newFile("corrupted.index").toPath();
+        WordIndexWriter.write(StringToMapConverter.fromString(LINE), index);
+        byte[] bytes = Files.readAllBytes(index);
+        int footer = bytes.length - WordIndexWriter.FOOTER_SIZE;
+        long directoryPosition = ByteBuffer.wrap(bytes, footer, 8).getLong();
+        for (long position : new long[]{-1, 0, 7, footer + 1, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertCorrupted("directory position " + position, index, bytes, footer, ByteBuffer.allocate(8).putLong(position).array());
+        }
+        for (int lettersCount : new int[]{-1, 1000, Integer.MAX_VALUE}) {
+            assertCorrupted("letters count " + lettersCount, index, bytes, footer + 8, ByteBuffer.allocate(4).putInt(lettersCount).array());
+        }
+        for (int letterLength : new int[]{-1, 1000, Integer.MAX_VALUE}) {
+            assertCorrupted("letter length " + letterLength, index, bytes, (int) directoryPosition, ByteBuffer.allocate(4).putInt(letterLength).array());
+        }
+        // words position and count of the first letter, which follow its single char
+        int entry = (int) directoryPosition + 6;
+        assertCorrupted("words position", index, bytes, entry, ByteBuffer.allocate(8).putLong(footer).array());
+        assertCorrupted("count", index, bytes, entry + 16, ByteBuffer.allocate(4).putInt(-2).array());
+        assertCorrupted("count", index, bytes, entry + 16, ByteBuffer.allocate(4).putInt(Integer.MAX_VALUE).array());
+    }
+
+    private static void assertCorrupted(String message, Path index, byte[] bytes, int position, byte[] patch) throws IOException {
+        byte[] corrupted = bytes.clone();
+        System.arraycopy(patch, 0, corrupted, position, patch.length);
+        Files.write(index, corrupted);
+        try {
+            new WordIndexReader(index).close();
+            fail(message);
+        } catch (IOException e) {
+            assertEquals(message, "Illegal index file", e.getMessage());
+        }
+    }
+}
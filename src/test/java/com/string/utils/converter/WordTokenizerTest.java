@@ -0,0 +1,90 @@
+package com.string.utils.converter;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Words found by the tokenizer are compared with regex split of the whole line.
+ * Input is fed by chunks of every size from 1 byte, so every possible cut of words and multi byte characters is checked.
+ */
+public class WordTokenizerTest {
+
+    private static final String LINE = "сапог сарай  арбуз\tболт\nбокс биржа ёжик word 𝄞music ";
+
+    @Test
+    public void byteLevelCharsets() {
+        assertTrue(WordTokenizer.isCutByWhitespaceBytes(Charset.forName("UTF-8")));
+        assertTrue(WordTokenizer.isCutByWhitespaceBytes(Charset.forName("Windows-1251")));
+        assertFalse(WordTokenizer.isCutByWhitespaceBytes(Charset.forName("UTF-16")));
+    }
+
+    @Test
+    public void utf8ByChunks() {
+        assertTokenizedByChunks(LINE, "UTF-8");
+    }
+
+    @Test
+    public void win1251ByChunks() {
+        // supplementary character is not mapped by Windows-1251
+        assertTokenizedByChunks(LINE.replace("𝄞", ""), "Windows-1251");
+    }
+
+    @Test
+    public void utf16ByChunks() {
+        assertTokenizedByChunks(LINE, "UTF-16LE");
+    }
+
+    @Test
+    public void directBuffer() {
+        byte[] bytes = LINE.getBytes(Charset.forName("UTF-8"));
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        List<String> words = new ArrayList<>();
+        WordTokenizer tokenizer = new WordTokenizer(Charset.forName("UTF-8"), 3, collectingInto(words));
+        tokenizer.feed(direct);
+        tokenizer.finish();
+        assertFalse(direct.hasRemaining());
+        assertEquals(expectedWords(LINE), words);
+    }
+
+    @Test
+    public void lastWordWithoutWhitespace() {
+        List<String> words = new ArrayList<>();
+        WordTokenizer tokenizer = new WordTokenizer(Charset.forName("UTF-8"), 8, collectingInto(words));
+        byte[] bytes = "слово".getBytes(Charset.forName("UTF-8"));
+        tokenizer.feed(bytes, 0, bytes.length);
+        assertTrue(words.isEmpty());
+        tokenizer.finish();
+        assertEquals(Arrays.asList("слово"), words);
+    }
+
+    private void assertTokenizedByChunks(String line, String charsetName) {
+        Charset charset = Charset.forName(charsetName);
+        byte[] bytes = line.getBytes(charset);
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize++) {
+            List<String> words = new ArrayList<>();
+            WordTokenizer tokenizer = new WordTokenizer(charset, chunkSize, collectingInto(words));
+            for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                tokenizer.feed(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+            }
+            tokenizer.finish();
+            assertEquals("chunk size " + chunkSize, expectedWords(line), words);
+        }
+    }
+
+    private static List<String> expectedWords(String line) {
+        return Arrays.stream(line.split("\\s")).filter(word -> !word.isEmpty()).collect(Collectors.toList());
+    }
+
+    private static WordConsumer collectingInto(List<String> words) {
+        return (chars, offset, length) -> words.add(new String(chars, offset, length));
+    }
+}
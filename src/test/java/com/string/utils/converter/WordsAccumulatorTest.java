@@ -0,0 +1,88 @@
+package com.string.utils.converter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Set;
+
+import static com.string.utils.converter.StringToMapConverter.fromString;
+import static org.junit.Assert.*;
+
+/**
+ * Results of the accumulator fed by chunks are compared with {@link StringToMapConverter#fromString(CharSequence)} for the whole line.
+ */
+public class WordsAccumulatorTest {
+
+    private static final String LINE = "сапог сарай арбуз болт бокс биржа сапоги строка слово тест только привет пока прилет";
+    private final static String WIN1251 = "Windows-1251";
+
+    private Map<String, Set<String>> sorted;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidBufferSize() {
+        new WordsAccumulator(1, WIN1251);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void feedAfterFinish() {
+        WordsAccumulator accumulator = new WordsAccumulator();
+        accumulator.finish();
+        accumulator.feed("слово");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void bytesAndChars() {
+        new WordsAccumulator().feed(new byte[]{'a'}).feed("b");
+    }
+
+    @Test
+    public void byteArrayChunks() {
+        byte[] bytes = LINE.getBytes(Charset.forName(WIN1251));
+        for (int chunkSize = 1; chunkSize <= bytes.length; chunkSize += 3) {
+            WordsAccumulator accumulator = new WordsAccumulator(8, WIN1251);
+            for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+                accumulator.feed(bytes, offset, Math.min(chunkSize, bytes.length - offset));
+            }
+            assertEquals(fromString(LINE), accumulator.finish());
+        }
+    }
+
+    @Test
+    public void byteBufferChunks() {
+        byte[] bytes = LINE.getBytes(Charset.forName("UTF-8"));
+        WordsAccumulator accumulator = new WordsAccumulator();
+        // cuts two byte characters
+        for (int offset = 0; offset < bytes.length; offset += 5) {
+            accumulator.feed(ByteBuffer.wrap(bytes, offset, Math.min(5, bytes.length - offset)));
+        }
+        assertEquals(fromString(LINE), accumulator.finish());
+    }
+
+    @Test
+    public void charChunks() {
+        WordsAccumulator accumulator = new WordsAccumulator();
+        for (int offset = 0; offset < LINE.length(); offset += 7) {
+            accumulator.feed(new StringBuilder(LINE.substring(offset, Math.min(offset + 7, LINE.length()))));
+        }
+        assertEquals(fromString(LINE), accumulator.finish());
+    }
+
+    @Test
+    public void inputStream() throws IOException {
+        sorted = new StringToMapConverter(8, WIN1251).fromStream(new ByteArrayInputStream(LINE.getBytes(Charset.forName(WIN1251))));
+        assertEquals(fromString(LINE), sorted);
+        assertArrayEquals(new String[]{"сапоги", "строка", "сапог", "сарай", "слово"}, sorted.get("с").toArray());
+    }
+
+    @Test
+    public void channel() throws IOException {
+        byte[] bytes = LINE.getBytes(Charset.forName("UTF-8"));
+        sorted = new StringToMapConverter(8, "UTF-8").fromChannel(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        assertEquals(fromString(LINE), sorted);
+    }
+}
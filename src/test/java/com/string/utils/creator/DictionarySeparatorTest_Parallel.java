@@ -0,0 +1,69 @@
+package com.string.utils.creator;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Separation with few open files and several writer threads is compared with words of the dictionary grouped in memory.
+ * Letters are latin letters and digits, so file names are valid on any file system.
+ */
+public class DictionarySeparatorTest_Parallel {
+
+    private final static String WIN1251 = "Windows-1251";
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz0123456789";
+    private static final int WORDS_COUNT = 200_000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static File dictionary;
+    private static Map<String, List<String>> expected = new HashMap<>();
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        Random random = new Random(5);
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < WORDS_COUNT; i++) {
+            // skewed letters, so some batches are full long before the others
+            String letter = String.valueOf(LETTERS.charAt(Math.min(random.nextInt(LETTERS.length()), random.nextInt(LETTERS.length()))));
+            StringBuilder word = new StringBuilder(letter);
+            for (int j = random.nextInt(12); j >= 0; j--) word.append((char) ('а' + random.nextInt(32)));
+            lines.add(word.toString());
+            expected.computeIfAbsent(letter, key -> new ArrayList<>()).add(word.toString());
+        }
+        // empty lines are skipped
+        lines.add(1000, "");
+        dictionary = folder.newFile("dictionary.txt");
+        Files.write(dictionary.toPath(), lines, Charset.forName(WIN1251));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidMaxOpenFiles() {
+        new DictionarySeparator(dictionary.getPath(), WIN1251, 0, 1);
+    }
+
+    @Test
+    public void byFirstLetter() throws IOException {
+        for (int[] limits : new int[][]{{4, 3}, {1, 1}, {100, 8}}) {
+            File destination = folder.newFolder();
+            // file of a previous run is overwritten
+            Files.write(new File(destination, "a").toPath(), Collections.singletonList("old"));
+            new DictionarySeparator(dictionary.getPath(), WIN1251, limits[0], limits[1]).byFirstLetter(destination.getPath());
+            assertEquals(expected.size(), destination.list().length);
+            for (Map.Entry<String, List<String>> byFirstLetter : expected.entrySet()) {
+                File file = new File(destination, byFirstLetter.getKey());
+                assertEquals(byFirstLetter.getValue(), Files.readAllLines(file.toPath(), Charset.forName(WIN1251)));
+            }
+        }
+    }
+}
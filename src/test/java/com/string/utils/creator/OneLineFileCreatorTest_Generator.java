@@ -0,0 +1,104 @@
+package com.string.utils.creator;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Generator mode is run on small generated dictionaries.
+ */
+public class OneLineFileCreatorTest_Generator {
+
+    private final static String WIN1251 = "Windows-1251";
+    private static final int DICTIONARY_WORDS = 2000;
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static File dictionariesDir;
+    private static Set<String> dictionaryWords = new HashSet<>();
+
+    @BeforeClass
+    public static void setUp() throws IOException {
+        dictionariesDir = folder.newFolder("byFirstLetter");
+        Random random = new Random(3);
+        String letters = "абвгдежзиклмнопрстуфхцчшщэюя";
+        for (char first : "абв".toCharArray()) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < DICTIONARY_WORDS; i++) {
+                StringBuilder word = new StringBuilder().append(first);
+                for (int j = random.nextInt(10); j >= 0; j--) word.append(letters.charAt(random.nextInt(letters.length())));
+                lines.add(word.toString());
+                dictionaryWords.add(word.toString());
+            }
+            Files.write(new File(dictionariesDir, "dictionary" + (int) first + ".txt").toPath(), lines, Charset.forName(WIN1251));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeZipfExponent() {
+        new OneLineFileCreator(dictionariesDir.getPath(), WIN1251).setZipfExponent(-1);
+    }
+
+    @Test
+    public void wordsCount() throws IOException {
+        File destination = folder.newFile();
+        OneLineFileCreator creator = new OneLineFileCreator(dictionariesDir.getPath(), WIN1251);
+        creator.generateByWordsCount(destination.getPath(), 200_001, 5);
+        String line = new String(Files.readAllBytes(destination.toPath()), WIN1251);
+        assertTrue(line.endsWith(" "));
+        String[] words = line.split(" ");
+        assertEquals(200_001, words.length);
+        for (String word : words) assertTrue(word, dictionaryWords.contains(word));
+    }
+
+    @Test
+    public void size() throws IOException {
+        File destination = folder.newFile();
+        OneLineFileCreator creator = new OneLineFileCreator(dictionariesDir.getPath(), WIN1251);
+        long size = 10_000_000;
+        creator.generateBySize(destination.getPath(), size, 5);
+        assertTrue(destination.length() >= size);
+        // less than a word per block of 4Mb
+        assertTrue(destination.length() < size + 3 * 12);
+        assertEquals(' ', Files.readAllBytes(destination.toPath())[(int) destination.length() - 1]);
+    }
+
+    @Test
+    public void reproducible() throws IOException {
+        File first = folder.newFile();
+        File second = folder.newFile();
+        File other = folder.newFile();
+        OneLineFileCreator creator = new OneLineFileCreator(dictionariesDir.getPath(), WIN1251);
+        creator.generateBySize(first.getPath(), 9_000_000, 17);
+        new OneLineFileCreator(dictionariesDir.getPath(), WIN1251).generateBySize(second.getPath(), 9_000_000, 17);
+        creator.generateBySize(other.getPath(), 9_000_000, 18);
+        assertArrayEquals(Files.readAllBytes(first.toPath()), Files.readAllBytes(second.toPath()));
+        assertFalse(Arrays.equals(Files.readAllBytes(first.toPath()), Files.readAllBytes(other.toPath())));
+    }
+
+    @Test
+    public void zipf() throws IOException {
+        File destination = folder.newFile();
+        OneLineFileCreator creator = new OneLineFileCreator(dictionariesDir.getPath(), WIN1251);
+        creator.setZipfExponent(1.2);
+        creator.generateByWordsCount(destination.getPath(), 100_000, 5);
+        Map<String, Integer> counts = new HashMap<>();
+        for (String word : new String(Files.readAllBytes(destination.toPath()), WIN1251).split(" ")) counts.merge(word, 1, Integer::sum);
+        List<Integer> frequencies = new ArrayList<>(counts.values());
+        frequencies.sort(Collections.reverseOrder());
+        // the most frequent word is about twice as frequent as the second one, uniform distribution gives about 17 repeats per word
+        assertTrue(frequencies.get(0) > 10_000);
+        assertTrue(frequencies.get(0) > frequencies.get(1) * 1.5);
+        assertTrue(counts.size() < DICTIONARY_WORDS * 3);
+    }
+}